@@ -11,6 +11,8 @@ dependencies {
   compile("io.vertx:vertx-core:3.6.2")
   compile("io.vertx:vertx-codegen:3.6.2:processor")
   compile("io.vertx:vertx-service-proxy:3.6.2")
+  // BinaryProxy生成器：额外生成FooServiceBinaryEBProxy、FooServiceBinaryProxyHandler和FooServiceBinaryCodec
+  compile("tk.okou:vertx-future-wrapper-gen:1.0-SNAPSHOT")
 }
 val compileJava = tasks.named<JavaCompile>("compileJava")
 compileJava {
@@ -11,9 +11,13 @@ dependencies {
   compile("io.vertx:vertx-core:3.6.2")
   compile("io.vertx:vertx-codegen:3.6.2")
   compile("io.vertx:vertx-service-proxy:3.6.2")
+  // BinaryProxy生成器：额外生成FooServiceBinaryEBProxy、FooServiceBinaryProxyHandler和FooServiceBinaryCodec
+  compile("tk.okou:vertx-future-wrapper-gen:1.0-SNAPSHOT")
   annotationProcessor("io.vertx:vertx-core:3.6.2")
   annotationProcessor("io.vertx:vertx-codegen:3.6.2:processor")
   annotationProcessor("io.vertx:vertx-service-proxy:3.6.2")
+  // 用了annotationProcessor之后compile不在处理器路径上，生成器要在这里再声明一次
+  annotationProcessor("tk.okou:vertx-future-wrapper-gen:1.0-SNAPSHOT")
 }
 val compileJava = tasks.named<JavaCompile>("compileJava")
 compileJava {
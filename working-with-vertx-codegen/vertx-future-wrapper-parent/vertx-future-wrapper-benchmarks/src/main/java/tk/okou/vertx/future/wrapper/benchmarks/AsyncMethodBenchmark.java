@@ -0,0 +1,121 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two shapes the generator can emit for an {@code asyncXxx} method: the
+ * {@code Future.future(handler -> xxx(args, handler))} trampoline and the {@code directFuture} one.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar AsyncMethodBenchmark -prof gc} and compare
+ * {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncMethodBenchmark {
+
+  /**
+   * Stands for the vert.x object, completes synchronously with a shared result so that only the wrapper
+   * allocations are measured.
+   */
+  static class Delegate {
+    static final AsyncResult<Delegate> SELF = Future.succeededFuture(new Delegate());
+    static final AsyncResult<String> VALUE = Future.succeededFuture("value");
+
+    void get(String key, Handler<AsyncResult<String>> handler) {
+      handler.handle(VALUE);
+    }
+
+    void self(String key, Handler<AsyncResult<Delegate>> handler) {
+      handler.handle(SELF);
+    }
+  }
+
+  /**
+   * Stands for a generated wrapper of {@link Delegate}.
+   */
+  static class Wrapper {
+    final Delegate delegate;
+
+    Wrapper(Delegate delegate) {
+      this.delegate = delegate;
+    }
+
+    void get(String key, Handler<AsyncResult<String>> handler) {
+      delegate.get(key, handler);
+    }
+
+    void self(String key, Handler<AsyncResult<Wrapper>> handler) {
+      delegate.self(key, ar -> {
+        if (ar.succeeded()) {
+          handler.handle(Future.succeededFuture(new Wrapper(ar.result())));
+        } else {
+          handler.handle(Future.failedFuture(ar.cause()));
+        }
+      });
+    }
+
+    Future<String> trampolineGet(String key) {
+      return Future.future(handler -> {
+        get(key, handler);
+      });
+    }
+
+    Future<String> directGet(String key) {
+      Future<String> future = Future.future();
+      delegate.get(key, future);
+      return future;
+    }
+
+    Future<Wrapper> trampolineSelf(String key) {
+      return Future.future(handler -> {
+        self(key, handler);
+      });
+    }
+
+    Future<Wrapper> directSelf(String key) {
+      Future<Wrapper> future = Future.future();
+      self(key, future);
+      return future;
+    }
+  }
+
+  private final Wrapper wrapper = new Wrapper(new Delegate());
+  private String key = "key";
+
+  @Benchmark
+  public Future<String> trampolineSameType() {
+    return wrapper.trampolineGet(key);
+  }
+
+  @Benchmark
+  public Future<String> directSameType() {
+    return wrapper.directGet(key);
+  }
+
+  @Benchmark
+  public Future<Wrapper> trampolineConverted() {
+    return wrapper.trampolineSelf(key);
+  }
+
+  @Benchmark
+  public Future<Wrapper> directConverted() {
+    return wrapper.directSelf(key);
+  }
+}
@@ -0,0 +1,25 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks matching the first argument (all of them by default) with the GC profiler, reporting the
+ * bytes allocated per operation next to the throughput and the latency percentiles:
+ * {@code java -cp target/benchmarks.jar tk.okou.vertx.future.wrapper.benchmarks.BenchmarkRunner WrapperOverhead}.
+ * <p>
+ * {@code java -jar target/benchmarks.jar} runs JMH with its own command line options.
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder()
+      .include(args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName())
+      .addProfiler(GCProfiler.class)
+      .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,102 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.future.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code Buffer} wrapper with {@code codegen.future.wrapper.pooledBuffer}, for payloads of {@code size} bytes:
+ * heap buffers against pooled direct buffers, copying appends against {@code composite}, and the {@code getInt}
+ * and {@code setInt} of the wrapper against the bulk {@code getInts} and {@code setInts}.
+ * <p>
+ * Run with {@code -prof gc}: the heap buffers allocate their payload per operation, the pooled buffers reuse the
+ * memory of the pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferBenchmark {
+
+  @Param({"1024", "65536", "4194304"})
+  public int size;
+
+  private byte[] payload;
+  private Buffer head;
+  private Buffer tail;
+  private int[] ints;
+  private Buffer intBuffer;
+
+  @Setup
+  public void setup() {
+    payload = new byte[size];
+    head = Buffer.buffer(payload);
+    tail = Buffer.buffer(payload);
+    ints = new int[size / 4];
+    intBuffer = Buffer.buffer(size).setInts(0, ints, 0, ints.length);
+  }
+
+  @Benchmark
+  public int heap() {
+    Buffer buffer = Buffer.buffer(size).appendBytes(payload);
+    return buffer.length();
+  }
+
+  @Benchmark
+  public int pooledDirect() {
+    Buffer buffer = Buffer.directBuffer(size).appendBytes(payload);
+    int length = buffer.length();
+    buffer.release();
+    return length;
+  }
+
+  @Benchmark
+  public int appendCopy() {
+    return Buffer.buffer(size * 2).appendBuffer(head).appendBuffer(tail).length();
+  }
+
+  @Benchmark
+  public int composite() {
+    return Buffer.composite(head, tail).length();
+  }
+
+  @Benchmark
+  public int[] getInt() {
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = intBuffer.getInt(i * 4);
+    }
+    return ints;
+  }
+
+  @Benchmark
+  public int[] getInts() {
+    intBuffer.getInts(0, ints, 0, ints.length);
+    return ints;
+  }
+
+  @Benchmark
+  public Buffer setInt() {
+    for (int i = 0; i < ints.length; i++) {
+      intBuffer.setInt(i * 4, ints[i]);
+    }
+    return intBuffer;
+  }
+
+  @Benchmark
+  public Buffer setInts() {
+    return intBuffer.setInts(0, ints, 0, ints.length);
+  }
+}
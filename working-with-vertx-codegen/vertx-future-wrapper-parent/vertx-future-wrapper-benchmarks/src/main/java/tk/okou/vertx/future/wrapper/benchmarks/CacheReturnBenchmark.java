@@ -0,0 +1,90 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.future.core.Vertx;
+import io.vertx.future.core.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calls the {@code @CacheReturn} {@link Vertx#eventBus()} of fresh wrappers from several threads at once and
+ * checks that every thread gets the same {@link EventBus} wrapper, the iteration fails otherwise.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class CacheReturnBenchmark {
+
+  private static final int WRAPPERS = 4096;
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int index;
+
+    int next() {
+      int next = index;
+      index = (next + 1) & (WRAPPERS - 1);
+      return next;
+    }
+  }
+
+  private io.vertx.core.Vertx vertx;
+  private Vertx[] wrappers;
+  private AtomicReferenceArray<EventBus> observed;
+  private final LongAdder duplicates = new LongAdder();
+
+  @Setup(Level.Trial)
+  public void startVertx() {
+    vertx = io.vertx.core.Vertx.vertx();
+  }
+
+  @Setup(Level.Iteration)
+  public void freshWrappers() {
+    wrappers = new Vertx[WRAPPERS];
+    for (int i = 0; i < WRAPPERS; i++) {
+      wrappers[i] = new Vertx(vertx);
+    }
+    observed = new AtomicReferenceArray<>(WRAPPERS);
+  }
+
+  @TearDown(Level.Iteration)
+  public void checkDuplicates() {
+    long count = duplicates.sumThenReset();
+    if (count > 0) {
+      throw new IllegalStateException(count + " duplicate cached wrappers");
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void closeVertx() {
+    vertx.close();
+  }
+
+  @Benchmark
+  public EventBus eventBus(Cursor cursor) {
+    int index = cursor.next();
+    EventBus eventBus = wrappers[index].eventBus();
+    if (!observed.compareAndSet(index, null, eventBus) && observed.get(index) != eventBus) {
+      duplicates.increment();
+    }
+    return eventBus;
+  }
+}
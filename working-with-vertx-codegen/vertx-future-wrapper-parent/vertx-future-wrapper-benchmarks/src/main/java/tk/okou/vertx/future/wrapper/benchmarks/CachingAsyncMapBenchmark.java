@@ -0,0 +1,123 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.Context;
+import io.vertx.core.json.JsonObject;
+import io.vertx.future.core.Vertx;
+import io.vertx.future.core.shareddata.AsyncMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.future.core.CachingAsyncMap;
+import tk.okou.vertx.future.wrapper.Sync;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes of an {@code AsyncMap} of {@code 1000} keys, 90% reads: through the wrapped map, through a
+ * {@link CachingAsyncMap} and through its {@link CachingAsyncMap#getIfPresent}, falling back to {@code asyncGet} on a
+ * miss.
+ * <p>
+ * The {@code local} map replies synchronously from a {@code ConcurrentHashMap}, which a cache cannot beat. The
+ * {@code remote} map replies from an event loop, as a clustered map replies once the cluster manager has answered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachingAsyncMapBenchmark {
+
+  private static final int KEYS = 1000;
+
+  @Param({"local", "remote"})
+  public String backend;
+
+  private io.vertx.core.Vertx vertx;
+  private AsyncMap<String, JsonObject> map;
+  private CachingAsyncMap<String, JsonObject> caching;
+  private final String[] keys = new String[KEYS];
+  private final JsonObject value = new JsonObject().put("symbol", "VRTX").put("quantity", 100);
+
+  @Setup(Level.Trial)
+  public void setup() {
+    vertx = io.vertx.core.Vertx.vertx();
+    map = Sync.await(Vertx.newInstance(vertx).sharedData().asyncGetAsyncMap("benchmark"));
+    if ("remote".equals(backend)) {
+      map = AsyncMap.newInstance(onContext(vertx.getOrCreateContext(), map.getDelegate()));
+    }
+    caching = new CachingAsyncMap<>(map, 2 * KEYS, 1, TimeUnit.MINUTES);
+    for (int i = 0; i < KEYS; i++) {
+      keys[i] = "key-" + i;
+      Sync.await(map.asyncPut(keys[i], value));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  public Object plain() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String key = keys[random.nextInt(KEYS)];
+    if (random.nextInt(10) == 0) {
+      return Sync.await(map.asyncPut(key, value));
+    }
+    return Sync.await(map.asyncGet(key));
+  }
+
+  @Benchmark
+  public Object caching() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String key = keys[random.nextInt(KEYS)];
+    if (random.nextInt(10) == 0) {
+      return Sync.await(caching.asyncPut(key, value));
+    }
+    return Sync.await(caching.asyncGet(key));
+  }
+
+  @Benchmark
+  public Object getIfPresent() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String key = keys[random.nextInt(KEYS)];
+    if (random.nextInt(10) == 0) {
+      return Sync.await(caching.asyncPut(key, value));
+    }
+    JsonObject cached = caching.getIfPresent(key);
+    return cached != null ? cached : Sync.await(caching.asyncGet(key));
+  }
+
+  /**
+   * @return {@code map} called on {@code context}
+   */
+  private static io.vertx.core.shareddata.AsyncMap<?, ?> onContext(Context context, io.vertx.core.shareddata.AsyncMap<?, ?> map) {
+    return (io.vertx.core.shareddata.AsyncMap<?, ?>) Proxy.newProxyInstance(CachingAsyncMapBenchmark.class.getClassLoader(),
+      new Class<?>[]{io.vertx.core.shareddata.AsyncMap.class}, (proxy, method, args) -> {
+        if (method.getDeclaringClass() == Object.class) {
+          return method.invoke(map, args);
+        }
+        context.runOnContext(v -> {
+          try {
+            method.invoke(map, args);
+          } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+          }
+        });
+        return null;
+      });
+  }
+}
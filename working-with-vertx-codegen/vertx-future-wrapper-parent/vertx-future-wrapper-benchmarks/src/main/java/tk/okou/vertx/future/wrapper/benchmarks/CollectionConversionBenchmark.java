@@ -0,0 +1,73 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.future.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.vertx.future.wrapper.CollectionViews;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the {@code Collectors} copies with the {@link CollectionViews} of the {@code lazyCollections} mode,
+ * for a list returned by a delegate and handed back to another one ({@code roundTrip}) and for a list of which
+ * only the first element is read ({@code readFirst}).
+ * <p>
+ * Run with {@code -prof gc} for the allocations per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionConversionBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int size;
+
+  private List<io.vertx.core.buffer.Buffer> delegates;
+
+  @Setup
+  public void setup() {
+    delegates = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      delegates.add(io.vertx.core.buffer.Buffer.buffer("elt-" + i));
+    }
+  }
+
+  @Benchmark
+  public List<io.vertx.core.buffer.Buffer> copyRoundTrip() {
+    List<Buffer> wrapped = delegates.stream().map(elt -> Buffer.newInstance(elt)).collect(Collectors.toList());
+    return wrapped.stream().map(elt -> elt.getDelegate()).collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public List<io.vertx.core.buffer.Buffer> viewRoundTrip() {
+    List<Buffer> wrapped = CollectionViews.list(delegates, elt -> Buffer.newInstance(elt));
+    return CollectionViews.list(wrapped, elt -> elt.getDelegate());
+  }
+
+  @Benchmark
+  public Buffer copyReadFirst() {
+    List<Buffer> wrapped = delegates.stream().map(elt -> Buffer.newInstance(elt)).collect(Collectors.toList());
+    return wrapped.get(0);
+  }
+
+  @Benchmark
+  public Buffer viewReadFirst() {
+    List<Buffer> wrapped = CollectionViews.list(delegates, elt -> Buffer.newInstance(elt));
+    return wrapped.get(0);
+  }
+}
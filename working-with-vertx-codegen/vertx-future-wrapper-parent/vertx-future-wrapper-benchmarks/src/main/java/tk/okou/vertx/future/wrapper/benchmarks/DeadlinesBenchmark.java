@@ -0,0 +1,112 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.future.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.future.core.Deadlines;
+import tk.okou.vertx.future.wrapper.Sync;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@code 1000} calls given a deadline and completed in time per operation, on an event loop with {@code pending}
+ * calls waiting for their deadline: through a {@code setTimer} per call cancelled on completion, and through
+ * {@link Deadlines}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeadlinesBenchmark {
+
+  private static final int CALLS = 1000;
+  private static final long TIMEOUT = TimeUnit.MINUTES.toMillis(10);
+
+  @Param({"10000", "100000"})
+  public int pending;
+
+  private io.vertx.core.Vertx vertx;
+  private Context context;
+  private Deadlines deadlines;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    vertx = io.vertx.core.Vertx.vertx();
+    context = vertx.getOrCreateContext();
+    deadlines = new Deadlines(Vertx.newInstance(vertx));
+    Sync.await(onContext(() -> {
+      for (int i = 0; i < pending; i++) {
+        setTimer(Future.future());
+        deadlines.timeout(Future.future(), TIMEOUT, TimeUnit.MILLISECONDS);
+      }
+    }));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS)
+  public Void setTimer() {
+    return Sync.await(onContext(() -> {
+      for (int i = 0; i < CALLS; i++) {
+        Future<Object> call = Future.future();
+        setTimer(call);
+        call.complete();
+      }
+    }));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS)
+  public Void deadlines() {
+    return Sync.await(onContext(() -> {
+      for (int i = 0; i < CALLS; i++) {
+        Future<Object> call = Future.future();
+        deadlines.timeout(call, TIMEOUT, TimeUnit.MILLISECONDS);
+        call.complete();
+      }
+    }));
+  }
+
+  /**
+   * @return {@code call}, failed by a timer unless it completes first
+   */
+  private Future<Object> setTimer(Future<Object> call) {
+    Future<Object> result = Future.future();
+    long timer = vertx.setTimer(TIMEOUT, id -> result.tryFail(new TimeoutException()));
+    call.setHandler(ar -> {
+      vertx.cancelTimer(timer);
+      result.tryComplete(ar.result());
+    });
+    return result;
+  }
+
+  private Future<Void> onContext(Runnable task) {
+    Future<Void> future = Future.future();
+    context.runOnContext(v -> {
+      task.run();
+      future.complete();
+    });
+    return future;
+  }
+}
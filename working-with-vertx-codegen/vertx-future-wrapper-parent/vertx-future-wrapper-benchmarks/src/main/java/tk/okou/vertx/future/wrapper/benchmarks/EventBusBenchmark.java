@@ -0,0 +1,113 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.future.core.Vertx;
+import io.vertx.future.core.eventbus.EventBus;
+import io.vertx.future.core.eventbus.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.future.core.EventBusFacade;
+import tk.okou.future.core.FanOut;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request/reply on a single local Vert.x instance, {@code 16} requests per operation: through the generated
+ * {@code EventBus} wrapper with a {@code JsonObject} body copied by its codec, through the {@link EventBusFacade} with
+ * a {@link DataObject} body handed over by reference, and through the facade as a single batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBusBenchmark {
+
+  private static final int REQUESTS = 16;
+
+  private io.vertx.core.Vertx vertx;
+  private EventBus eventBus;
+  private EventBusFacade facade;
+  private final JsonObject json = new JsonObject().put("symbol", "VRTX").put("quantity", 100);
+  private final List<Quote> quotes = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setup() {
+    vertx = io.vertx.core.Vertx.vertx();
+    Vertx wrapper = Vertx.newInstance(vertx);
+    eventBus = wrapper.eventBus();
+    eventBus.<JsonObject>consumer("wrapper", message -> message.reply(message.body()));
+    facade = new EventBusFacade(wrapper);
+    facade.consumer("facade", (Quote quote) -> Future.succeededFuture(quote));
+    for (int i = 0; i < REQUESTS; i++) {
+      quotes.add(new Quote(json));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(REQUESTS)
+  public Object[] wrapper() throws Exception {
+    return await(FanOut.all(REQUESTS, i -> eventBus.<JsonObject>asyncSend("wrapper", json).map(Message::body)));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(REQUESTS)
+  public Object[] facade() throws Exception {
+    return await(FanOut.all(REQUESTS, i -> facade.<Quote>asyncRequest("facade", quotes.get(i))));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(REQUESTS)
+  public List<Quote> facadeBatch() throws Exception {
+    return await(facade.asyncRequestBatch("facade", quotes));
+  }
+
+  private static <T> T await(Future<T> future) throws Exception {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    future.setHandler(ar -> {
+      if (ar.succeeded()) {
+        result.complete(ar.result());
+      } else {
+        result.completeExceptionally(ar.cause());
+      }
+    });
+    return result.get(10, TimeUnit.SECONDS);
+  }
+
+  @DataObject
+  public static class Quote {
+    private final String symbol;
+    private final int quantity;
+
+    public Quote(JsonObject json) {
+      symbol = json.getString("symbol");
+      quantity = json.getInteger("quantity");
+    }
+
+    public JsonObject toJson() {
+      return new JsonObject().put("symbol", symbol).put("quantity", quantity);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.future.core.FanOut;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects {@code count} results with {@link CompositeFuture#all(List)} and with {@link FanOut#all}, over futures
+ * already completed when collected ({@code completed}) and over futures completed afterwards ({@code deferred}).
+ * <p>
+ * Run with {@code -prof gc}: the composite future registers a handler per future and needs the futures in a list,
+ * the fan-out reuses one handler per call in flight and completed futures need none.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanOutBenchmark {
+
+  @Param({"10", "1000"})
+  public int count;
+
+  private Future<Integer>[] completed;
+  private Future<Integer>[] pending;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup() {
+    completed = new Future[count];
+    pending = new Future[count];
+    for (int i = 0; i < count; i++) {
+      completed[i] = Future.succeededFuture(i);
+    }
+  }
+
+  @Benchmark
+  public Object compositeCompleted() {
+    List<Future> futures = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      futures.add(completed[i]);
+    }
+    return CompositeFuture.all(futures).result();
+  }
+
+  @Benchmark
+  public Object fanOutCompleted() {
+    return FanOut.all(count, i -> completed[i]).result();
+  }
+
+  @Benchmark
+  public Object compositeDeferred() {
+    List<Future> futures = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      futures.add(pending[i] = Future.future());
+    }
+    Future<CompositeFuture> all = CompositeFuture.all(futures);
+    complete();
+    return all.result();
+  }
+
+  @Benchmark
+  public Object fanOutDeferred() {
+    Future<Object[]> all = FanOut.all(count, i -> pending[i] = Future.future());
+    complete();
+    return all.result();
+  }
+
+  /**
+   * At most 8 calls in flight, the next ones are started as the previous ones complete.
+   */
+  @Benchmark
+  public Object fanOutDeferredBounded() {
+    for (int i = 0; i < count; i++) {
+      pending[i] = Future.future();
+    }
+    Future<Object[]> all = FanOut.all(count, 8, i -> pending[i]);
+    complete();
+    return all.result();
+  }
+
+  private void complete() {
+    for (int i = 0; i < count; i++) {
+      pending[i].complete(i);
+    }
+  }
+}
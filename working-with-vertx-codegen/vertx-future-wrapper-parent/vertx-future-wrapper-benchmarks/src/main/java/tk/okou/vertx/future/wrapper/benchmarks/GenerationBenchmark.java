@@ -0,0 +1,132 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs the {@code FutureWrapper} generator over the vertx-core and vertx-redis-client APIs, the sources unpacked in
+ * {@code target/sources/java} by the build (or the {@code sources} system property).
+ * <p>
+ * A {@code cold} run starts from empty output and fingerprint directories, a {@code warm} one reuses those of the
+ * previous run so that no model has changed. {@code render} renders each wrapper to a string, renders them on 4
+ * threads, or streams them to the {@code Filer}. The peak heap of each iteration is printed, run with
+ * {@code -prof gc} for the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GenerationBenchmark {
+
+  @Param({"cold", "warm"})
+  public String cache;
+
+  @Param({"string", "parallel", "filer"})
+  public String render;
+
+  private JavaCompiler compiler;
+  private StandardJavaFileManager fileManager;
+  private Iterable<? extends JavaFileObject> sources;
+  private Path outputDir;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    compiler = ToolProvider.getSystemJavaCompiler();
+    fileManager = compiler.getStandardFileManager(null, null, null);
+    Path sourceDir = Paths.get(System.getProperty("sources", "target/sources/java"));
+    try (Stream<Path> files = Files.walk(sourceDir)) {
+      List<File> javaFiles = files.filter(it -> it.toString().endsWith(".java")).map(Path::toFile).collect(Collectors.toList());
+      sources = fileManager.getJavaFileObjectsFromFiles(javaFiles);
+    }
+    outputDir = Files.createTempDirectory("future-wrapper-gen");
+    if ("warm".equals(cache)) {
+      generate();
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void clean() throws IOException {
+    if ("cold".equals(cache)) {
+      delete(outputDir);
+      Files.createDirectories(outputDir);
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void resetPeak() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      pool.resetPeakUsage();
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void printPeak() {
+    long peak = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+    System.out.println("peak heap: " + peak / (1024 * 1024) + " MB");
+  }
+
+  @Benchmark
+  public boolean generate() throws IOException {
+    Path generated = Files.createDirectories(outputDir.resolve("generated"));
+    Path classes = Files.createDirectories(outputDir.resolve("classes"));
+    List<String> options = Arrays.asList(
+      "-proc:only",
+      "-processor", "io.vertx.codegen.CodeGenProcessor",
+      "-Acodegen.generators=FutureWrapper",
+      "-Acodegen.future.wrapper.directFuture=true",
+      "-Acodegen.future.wrapper.incremental=" + outputDir.resolve("fingerprints"),
+      "-Acodegen.future.wrapper.parallelism=" + ("parallel".equals(render) ? 4 : 0),
+      "-Acodegen.future.wrapper.filer=" + "filer".equals(render),
+      "-s", generated.toString(),
+      "-d", classes.toString(),
+      "-classpath", System.getProperty("java.class.path"));
+    return compiler.getTask(null, fileManager, diagnostic -> {}, options, null, sources).call();
+  }
+
+  private static void delete(Path dir) throws IOException {
+    if (Files.exists(dir)) {
+      try (Stream<Path> files = Files.walk(dir)) {
+        for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+          Files.delete(file);
+        }
+      }
+    }
+  }
+}
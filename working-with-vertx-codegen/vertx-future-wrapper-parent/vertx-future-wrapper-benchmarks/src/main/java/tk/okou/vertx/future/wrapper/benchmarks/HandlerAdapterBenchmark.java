@@ -0,0 +1,57 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.future.core.shareddata.Counter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tk.okou.vertx.future.wrapper.AsyncResultAdapter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands a delegate result to a wrapper handler through the lambda the generator used to inline, and through the
+ * shared {@link AsyncResultAdapter} it emits now.
+ * <p>
+ * Run with {@code -prof gc}: besides the wrapper, the lambda allocates itself and a succeeded future per callback
+ * when the handler call is not inlined, the adapter only itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerAdapterBenchmark {
+
+  private final AsyncResult<io.vertx.core.shareddata.Counter> result = Future.succeededFuture(new WrapperOverheadBenchmark.RawCounter());
+
+  @Benchmark
+  public void inlineLambda(Blackhole blackhole) {
+    Handler<AsyncResult<Counter>> handler = blackhole::consume;
+    Handler<AsyncResult<io.vertx.core.shareddata.Counter>> adapter = ar -> {
+      if (ar.succeeded()) {
+        handler.handle(io.vertx.core.Future.succeededFuture(Counter.newInstance(ar.result())));
+      } else {
+        handler.handle(io.vertx.core.Future.failedFuture(ar.cause()));
+      }
+    };
+    adapter.handle(result);
+  }
+
+  @Benchmark
+  public void adapter(Blackhole blackhole) {
+    Handler<AsyncResult<Counter>> handler = blackhole::consume;
+    Handler<AsyncResult<io.vertx.core.shareddata.Counter>> adapter = AsyncResultAdapter.wrapping(handler, Counter.__TYPE_ARG);
+    adapter.handle(result);
+  }
+}
@@ -0,0 +1,108 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.Future;
+import io.vertx.future.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.future.core.AbstractVerticle;
+import tk.okou.future.core.Deployments;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests an HTTP echo server on localhost from 16 threads, the server being deployed with
+ * {@link Deployments#deploy} as {@code instances} instances, {@code 0} for an instance per event loop.
+ * <p>
+ * The clients run in the same JVM and take cores from the server: the throughput grows with the instances until the
+ * server and the clients together use all the cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class HttpEchoBenchmark {
+
+  private static final int PORT = 8089;
+
+  @Param({"1", "2", "4", "0"})
+  public int instances;
+
+  private final byte[] body = new byte[128];
+  private io.vertx.core.Vertx vertx;
+  private URL url;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    vertx = io.vertx.core.Vertx.vertx();
+    Vertx wrapper = Vertx.newInstance(vertx);
+    int count = instances > 0 ? instances : Deployments.eventLoops(wrapper);
+    CompletableFuture<List<String>> deployed = new CompletableFuture<>();
+    Deployments.deploy(wrapper, EchoVerticle::new, count, new io.vertx.core.DeploymentOptions()).setHandler(ar -> {
+      if (ar.succeeded()) {
+        deployed.complete(ar.result());
+      } else {
+        deployed.completeExceptionally(ar.cause());
+      }
+    });
+    deployed.get(10, TimeUnit.SECONDS);
+    url = new URL("http://localhost:" + PORT + "/");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  public int echo() throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setDoOutput(true);
+    connection.setRequestMethod("POST");
+    try (OutputStream out = connection.getOutputStream()) {
+      out.write(body);
+    }
+    ByteArrayOutputStream received = new ByteArrayOutputStream(body.length);
+    try (InputStream in = connection.getInputStream()) {
+      byte[] chunk = new byte[256];
+      int read;
+      while ((read = in.read(chunk)) != -1) {
+        received.write(chunk, 0, read);
+      }
+    }
+    return received.size();
+  }
+
+  public static class EchoVerticle extends AbstractVerticle {
+
+    @Override
+    public Future<Void> asyncStart() {
+      return vertx.createHttpServer()
+        .requestHandler(request -> request.bodyHandler(body -> request.response().end(body)))
+        .asyncListen(PORT)
+        .mapEmpty();
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.Future;
+import io.vertx.future.core.shareddata.Counter;
+import io.vertx.future.core.shareddata.SharedData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.vertx.future.wrapper.Instrumentation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The async calls of {@link WrapperOverheadBenchmark} with the {@link Instrumentation} disabled, and enabled in a
+ * fork of its own since the flag is read once per JVM.
+ * <p>
+ * Run with {@code -prof gc}: the disabled calls allocate as much as without the instrumentation, the enabled calls
+ * allocate a timing handler more.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+  private static final String ENABLED = "-D" + Instrumentation.PROPERTY + "=true";
+
+  private final SharedData sharedData = SharedData.newInstance(new WrapperOverheadBenchmark.RawSharedData());
+  private final Counter counter = Counter.newInstance(WrapperOverheadBenchmark.RawSharedData.COUNTER.result());
+  private String name = "counter";
+
+  @Benchmark
+  public Future<Long> asyncGet() {
+    return counter.asyncGet();
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = ENABLED)
+  public Future<Long> asyncGetInstrumented() {
+    return counter.asyncGet();
+  }
+
+  @Benchmark
+  public Future<Counter> asyncGetCounter() {
+    return sharedData.asyncGetCounter(name);
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = ENABLED)
+  public Future<Counter> asyncGetCounterInstrumented() {
+    return sharedData.asyncGetCounter(name);
+  }
+}
@@ -0,0 +1,75 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.future.core.Context;
+import io.vertx.future.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.vertx.future.wrapper.WrapperCache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wrapping the {@link Vertx} and {@link Context} used by {@code AbstractVerticle} with a new wrapper per call, as
+ * {@code newInstance} does by default, and through the {@link WrapperCache} of the {@code intern} mode.
+ * <p>
+ * Run with {@code -prof gc}, the interned variants should not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InternBenchmark {
+
+  @Param({"REPLACE", "SECOND_CHANCE"})
+  public WrapperCache.Eviction eviction;
+
+  private io.vertx.core.Vertx vertx;
+  private io.vertx.core.Context context;
+  private WrapperCache<io.vertx.core.Vertx, Vertx> vertxCache;
+  private WrapperCache<io.vertx.core.Context, Context> contextCache;
+
+  @Setup
+  public void setup() {
+    vertx = io.vertx.core.Vertx.vertx();
+    context = vertx.getOrCreateContext();
+    vertxCache = WrapperCache.create(1024, eviction, Vertx::getDelegate);
+    contextCache = WrapperCache.create(1024, eviction, Context::getDelegate);
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  public Vertx newVertx() {
+    return new Vertx(vertx);
+  }
+
+  @Benchmark
+  public Vertx internedVertx() {
+    return vertxCache.get(vertx, Vertx::new);
+  }
+
+  @Benchmark
+  public Context newContext() {
+    return new Context(context);
+  }
+
+  @Benchmark
+  public Context internedContext() {
+    return contextCache.get(context, Context::new);
+  }
+}
@@ -0,0 +1,173 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.future.core.Vertx;
+import io.vertx.future.redis.RedisClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.future.core.RedisNearCache;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET} of a hot key through the generated {@code RedisClient} wrapper and through a {@link RedisNearCache}, and
+ * of keys following a skewed distribution with one write every {@code 100} reads. The Redis is a {@link FakeRedis}
+ * replying after a timer of {@code 1} ms, standing for the network round trip. Compare the {@code p0.99} of the sample
+ * times.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NearCacheBenchmark {
+
+  private static final int KEYS = 10_000;
+
+  private io.vertx.core.Vertx vertx;
+  private RedisClient redis;
+  private RedisNearCache nearCache;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    vertx = io.vertx.core.Vertx.vertx();
+    redis = RedisClient.newInstance(FakeRedis.create(vertx, 1));
+    for (int i = 0; i < KEYS; i++) {
+      await(redis.asyncSet("key:" + i, "value:" + i));
+    }
+    nearCache = new RedisNearCache(Vertx.newInstance(vertx), redis, "near-cache", 1_000, 30, TimeUnit.SECONDS);
+    await(nearCache.asyncStart());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    await(nearCache.asyncClose());
+    vertx.close();
+  }
+
+  @Benchmark
+  public String hotKeyRedis() throws Exception {
+    return await(redis.asyncGet("key:0"));
+  }
+
+  @Benchmark
+  public String hotKeyNearCache() throws Exception {
+    return await(nearCache.asyncGet("key:0"));
+  }
+
+  @Benchmark
+  public Object skewedNearCache() throws Exception {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String key = "key:" + (int) (KEYS * Math.pow(random.nextDouble(), 8));
+    if (random.nextInt(100) == 0) {
+      return await(nearCache.asyncSet(key, "value"));
+    }
+    return await(nearCache.asyncGet(key));
+  }
+
+  private static <T> T await(Future<T> future) throws Exception {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    future.setHandler(ar -> {
+      if (ar.succeeded()) {
+        result.complete(ar.result());
+      } else {
+        result.completeExceptionally(ar.cause());
+      }
+    });
+    return result.get(10, TimeUnit.SECONDS);
+  }
+
+  /**
+   * An in-process {@code io.vertx.redis.RedisClient} replying to the string, hash and pub/sub commands from maps after
+   * {@code latency} ms. The messages published on a channel are sent on the event bus as the client does.
+   */
+  public static final class FakeRedis {
+    private final io.vertx.core.Vertx vertx;
+    private final long latency;
+    private final Map<String, Object> data = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> channels = new ConcurrentHashMap<>();
+
+    private FakeRedis(io.vertx.core.Vertx vertx, long latency) {
+      this.vertx = vertx;
+      this.latency = latency;
+    }
+
+    public static io.vertx.redis.RedisClient create(io.vertx.core.Vertx vertx, long latency) {
+      FakeRedis redis = new FakeRedis(vertx, latency);
+      return (io.vertx.redis.RedisClient) Proxy.newProxyInstance(FakeRedis.class.getClassLoader(),
+        new Class<?>[]{io.vertx.redis.RedisClient.class}, (proxy, method, args) -> {
+          if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(redis, args);
+          }
+          @SuppressWarnings("unchecked")
+          Handler<AsyncResult<Object>> handler = (Handler<AsyncResult<Object>>) args[args.length - 1];
+          Object result = redis.execute(method.getName(), args);
+          vertx.setTimer(latency, id -> handler.handle(Future.succeededFuture(result)));
+          return proxy;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object execute(String command, Object[] args) {
+      switch (command) {
+        case "get":
+          return data.get((String) args[0]);
+        case "set":
+          data.put((String) args[0], args[1]);
+          return null;
+        case "del":
+          return data.remove((String) args[0]) != null ? 1L : 0L;
+        case "hget": {
+          Map<String, String> hash = (Map<String, String>) data.get((String) args[0]);
+          return hash != null ? hash.get((String) args[1]) : null;
+        }
+        case "hset": {
+          Map<String, String> hash = (Map<String, String>) data.computeIfAbsent((String) args[0], k -> new ConcurrentHashMap<>());
+          return hash.put((String) args[1], (String) args[2]) == null ? 1L : 0L;
+        }
+        case "hdel": {
+          Map<String, String> hash = (Map<String, String>) data.get((String) args[0]);
+          return hash != null && hash.remove((String) args[1]) != null ? 1L : 0L;
+        }
+        case "subscribe":
+          channels.put((String) args[0], true);
+          return new JsonArray().add("subscribe").add(args[0]).add(channels.size());
+        case "unsubscribe":
+          channels.keySet().removeAll((List<String>) args[0]);
+          return null;
+        case "publish": {
+          String channel = (String) args[0];
+          if (!channels.containsKey(channel)) {
+            return 0L;
+          }
+          JsonObject message = new JsonObject().put("channel", channel).put("message", args[1]);
+          vertx.setTimer(latency, id -> vertx.eventBus().send(RedisNearCache.DEFAULT_ADDRESS + "." + channel, new JsonObject().put("status", "ok").put("value", message)));
+          return 1L;
+        }
+        default:
+          throw new UnsupportedOperationException(command);
+      }
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.future.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tk.okou.vertx.future.wrapper.HandlerAdapter;
+import tk.okou.vertx.future.wrapper.PullStream;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumes a stream of {@code events} buffers pushed to a wrapper handler, pulled one by one with
+ * {@code asyncNext()}, and pulled by batches of {@code 64} with {@code asyncNext(64)}.
+ * <p>
+ * The stream delivers its events while it is not paused, as a socket does with the data it read, the pulls pause it
+ * when the buffer of a {@link PullStream} fills up. Run with {@code -prof gc}: a pull allocates a future per event
+ * or per batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PullStreamBenchmark {
+
+  @Param({"10000"})
+  public int events;
+
+  private final io.vertx.core.buffer.Buffer chunk = io.vertx.core.buffer.Buffer.buffer(new byte[1024]);
+
+  @Benchmark
+  public void push(Blackhole blackhole) {
+    Source source = new Source(events);
+    Handler<Buffer> handler = blackhole::consume;
+    source.handler(HandlerAdapter.wrapping(handler, Buffer.__TYPE_ARG));
+    source.pump();
+  }
+
+  @Benchmark
+  public void pull(Blackhole blackhole) {
+    Source source = new Source(events);
+    PullStream<Buffer> stream = new PullStream<>(source, Buffer.__TYPE_ARG::wrap, PullStream.DEFAULT_CAPACITY);
+    while (true) {
+      Future<Buffer> next = stream.next();
+      if (!next.isComplete()) {
+        source.pump();
+      }
+      if (next.result() == null) {
+        return;
+      }
+      blackhole.consume(next.result());
+    }
+  }
+
+  @Benchmark
+  public void pullBatch(Blackhole blackhole) {
+    Source source = new Source(events);
+    PullStream<Buffer> stream = new PullStream<>(source, Buffer.__TYPE_ARG::wrap, PullStream.DEFAULT_CAPACITY);
+    while (true) {
+      Future<List<Buffer>> next = stream.next(64);
+      if (!next.isComplete()) {
+        source.pump();
+      }
+      List<Buffer> batch = next.result();
+      if (batch.isEmpty()) {
+        return;
+      }
+      for (int i = 0; i < batch.size(); i++) {
+        blackhole.consume(batch.get(i));
+      }
+    }
+  }
+
+  /**
+   * Delivers the same buffer {@code count} times while not paused, then ends.
+   */
+  private final class Source implements ReadStream<io.vertx.core.buffer.Buffer> {
+    private final int count;
+    private int sent;
+    private boolean paused;
+    private Handler<io.vertx.core.buffer.Buffer> handler;
+    private Handler<Void> endHandler;
+
+    private Source(int count) {
+      this.count = count;
+    }
+
+    void pump() {
+      while (!paused && sent < count) {
+        sent++;
+        handler.handle(chunk);
+      }
+      if (sent == count && endHandler != null) {
+        Handler<Void> end = endHandler;
+        endHandler = null;
+        end.handle(null);
+      }
+    }
+
+    @Override
+    public ReadStream<io.vertx.core.buffer.Buffer> exceptionHandler(Handler<Throwable> handler) {
+      return this;
+    }
+
+    @Override
+    public ReadStream<io.vertx.core.buffer.Buffer> handler(Handler<io.vertx.core.buffer.Buffer> handler) {
+      this.handler = handler;
+      return this;
+    }
+
+    @Override
+    public ReadStream<io.vertx.core.buffer.Buffer> pause() {
+      paused = true;
+      return this;
+    }
+
+    @Override
+    public ReadStream<io.vertx.core.buffer.Buffer> resume() {
+      paused = false;
+      return this;
+    }
+
+    @Override
+    public ReadStream<io.vertx.core.buffer.Buffer> fetch(long amount) {
+      return this;
+    }
+
+    @Override
+    public ReadStream<io.vertx.core.buffer.Buffer> endHandler(Handler<Void> endHandler) {
+      this.endHandler = endHandler;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.future.core.Vertx;
+import io.vertx.future.redis.RedisClient;
+import io.vertx.redis.RedisOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.future.core.FakeRedisServer;
+import tk.okou.vertx.future.wrapper.Sync;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes {@code commands} {@code SET} to a {@link FakeRedisServer}: one round trip after the other, all at once
+ * through {@code asyncSet}, and through a {@code RedisClient.batch()}.
+ * <p>
+ * The reads of the server per command are printed after each trial, the lower the better the commands were
+ * pipelined.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisBatchBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int commands;
+
+  private io.vertx.core.Vertx vertx;
+  private FakeRedisServer server;
+  private RedisClient client;
+  private String[] keys;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    vertx = io.vertx.core.Vertx.vertx();
+    server = Sync.await(FakeRedisServer.start(vertx));
+    client = RedisClient.create(Vertx.newInstance(vertx), new RedisOptions().setPort(server.port()));
+    keys = new String[commands];
+    for (int i = 0; i < commands; i++) {
+      keys[i] = "key-" + i;
+    }
+    Sync.await(client.asyncPing());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.out.println("reads per command: " + (double) server.reads() / server.commands());
+    Sync.await(client.asyncClose());
+    server.close();
+    vertx.close();
+  }
+
+  @Benchmark
+  public void sequential() {
+    for (String key : keys) {
+      Sync.await(client.asyncSet(key, "value"));
+    }
+  }
+
+  @Benchmark
+  public void concurrent() {
+    List<Future> futures = new ArrayList<>(commands);
+    for (String key : keys) {
+      futures.add(client.asyncSet(key, "value"));
+    }
+    Sync.await(CompositeFuture.all(futures));
+  }
+
+  @Benchmark
+  public List<Object> batch() {
+    RedisClient.Batch batch = client.batch();
+    for (String key : keys) {
+      batch.set(key, "value");
+    }
+    return Sync.await(batch.send());
+  }
+}
@@ -0,0 +1,130 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.VertxOptions;
+import io.vertx.future.core.Vertx;
+import io.vertx.future.redis.RedisClient;
+import io.vertx.redis.RedisOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.future.core.FakeRedisServer;
+import tk.okou.future.core.FanOut;
+import tk.okou.future.core.RedisPool;
+import tk.okou.vertx.future.wrapper.Sync;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * {@code 256} {@code GET} per operation, split between a context per event loop, to {@link FakeRedisServer}s: through
+ * a single {@code RedisClient} shared by the contexts, through a {@link RedisPool} giving each context its own
+ * connection, and through a pool sharding the keys between two servers.
+ * <p>
+ * The shared client writes and replies on the context it was created on, the contexts hop to it and back. The throughput
+ * of the pool should grow with {@code eventLoops} as long as there are cores for them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisPoolBenchmark {
+
+  private static final int REQUESTS = 256;
+
+  @Param({"1", "2", "4"})
+  public int eventLoops;
+
+  private io.vertx.core.Vertx serverVertx;
+  private io.vertx.core.Vertx vertx;
+  private FakeRedisServer server0;
+  private FakeRedisServer server1;
+  private RedisClient shared;
+  private RedisPool pool;
+  private RedisPool sharded;
+  private Context[] contexts;
+  private String[] keys;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    serverVertx = io.vertx.core.Vertx.vertx();
+    server0 = Sync.await(FakeRedisServer.start(serverVertx));
+    server1 = Sync.await(FakeRedisServer.start(serverVertx));
+    vertx = io.vertx.core.Vertx.vertx(new VertxOptions().setEventLoopPoolSize(eventLoops));
+    Vertx wrapper = Vertx.newInstance(vertx);
+    RedisOptions options0 = new RedisOptions().setPort(server0.port());
+    RedisOptions options1 = new RedisOptions().setPort(server1.port());
+    shared = RedisClient.create(wrapper, options0);
+    pool = new RedisPool(wrapper, options0);
+    sharded = new RedisPool(wrapper, Arrays.asList(options0, options1), 1);
+    contexts = new Context[eventLoops];
+    for (int i = 0; i < eventLoops; i++) {
+      contexts[i] = vertx.getOrCreateContext();
+    }
+    keys = new String[REQUESTS];
+    for (int i = 0; i < REQUESTS; i++) {
+      keys[i] = "key-" + i;
+      Sync.await(sharded.client(keys[i]).asyncSet(keys[i], "value"));
+      Sync.await(shared.asyncSet(keys[i], "value"));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Sync.await(shared.asyncClose());
+    Sync.await(pool.asyncClose());
+    Sync.await(sharded.asyncClose());
+    vertx.close();
+    server0.close();
+    server1.close();
+    serverVertx.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(REQUESTS)
+  public Object[] shared() {
+    return run(key -> shared);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(REQUESTS)
+  public Object[] pool() {
+    return run(key -> pool.client(key));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(REQUESTS)
+  public Object[] sharded() {
+    return run(sharded::client);
+  }
+
+  /**
+   * Sends {@code REQUESTS / eventLoops} {@code GET} from each context.
+   */
+  private Object[] run(Function<String, RedisClient> client) {
+    int perContext = REQUESTS / eventLoops;
+    return Sync.await(FanOut.all(eventLoops, c -> {
+      Future<Object[]> future = Future.future();
+      contexts[c].runOnContext(v -> FanOut.all(perContext, i -> {
+        String key = keys[c * perContext + i];
+        return client.apply(key).asyncGet(key);
+      }).setHandler(future));
+      return future;
+    }));
+  }
+}
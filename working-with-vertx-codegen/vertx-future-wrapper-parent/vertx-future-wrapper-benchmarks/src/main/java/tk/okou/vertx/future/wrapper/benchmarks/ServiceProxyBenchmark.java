@@ -0,0 +1,98 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import examples.FooService;
+import examples.FooServiceBinaryEBProxy;
+import examples.FooServiceBinaryProxyHandler;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.serviceproxy.ServiceBinder;
+import io.vertx.serviceproxy.ServiceProxyBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.future.core.FanOut;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls {@code FooService.foo} over the local event bus, {@code 16} calls per operation: through the JSON proxy and
+ * proxy handler of vertx-service-proxy, through the proxy and proxy handler of the {@code BinaryProxy} generator, and
+ * through the binary proxy sending JSON envelopes to the binary proxy handler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceProxyBenchmark {
+
+  private static final int CALLS = 16;
+
+  private Vertx vertx;
+  private FooService json;
+  private FooService binary;
+  private FooService binaryJsonEnvelope;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    vertx = Vertx.vertx();
+    FooService service = (foo, result) -> result.handle(Future.succeededFuture());
+    new ServiceBinder(vertx).setAddress("json").register(FooService.class, service);
+    new FooServiceBinaryProxyHandler(vertx, service).register("binary");
+    json = new ServiceProxyBuilder(vertx).setAddress("json").build(FooService.class);
+    binary = new FooServiceBinaryEBProxy(vertx, "binary");
+    binaryJsonEnvelope = new FooServiceBinaryEBProxy(vertx, "binary", new DeliveryOptions(), false);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS)
+  public Object[] json() throws Exception {
+    return call(json);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS)
+  public Object[] binary() throws Exception {
+    return call(binary);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS)
+  public Object[] binaryJsonEnvelope() throws Exception {
+    return call(binaryJsonEnvelope);
+  }
+
+  private static Object[] call(FooService service) throws Exception {
+    CompletableFuture<Object[]> result = new CompletableFuture<>();
+    FanOut.all(CALLS, i -> {
+      Future<Void> future = Future.future();
+      service.foo("foo", future);
+      return future;
+    }).setHandler(ar -> {
+      if (ar.succeeded()) {
+        result.complete(ar.result());
+      } else {
+        result.completeExceptionally(ar.cause());
+      }
+    });
+    return result.get(10, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,98 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.future.core.Vertx;
+import io.vertx.future.redis.RedisClient;
+import io.vertx.redis.RedisOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.future.core.FakeRedisServer;
+import tk.okou.vertx.future.wrapper.Sync;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A stampede of {@code callers} concurrent {@code GET} of {@code keys} hot keys on a {@link FakeRedisServer}: through
+ * the handler {@code get}, each caller sending its command, and through {@code asyncGet}, coalesced by the
+ * {@code singleFlight} option of the wrapper pom.
+ * <p>
+ * The commands the server received per stampede are printed after each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SingleFlightBenchmark {
+
+  @Param({"100", "1000"})
+  public int callers;
+
+  @Param({"1", "10"})
+  public int keys;
+
+  private io.vertx.core.Vertx vertx;
+  private FakeRedisServer server;
+  private RedisClient client;
+  private String[] callerKeys;
+  private long stampedes;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    vertx = io.vertx.core.Vertx.vertx();
+    server = Sync.await(FakeRedisServer.start(vertx));
+    client = RedisClient.create(Vertx.newInstance(vertx), new RedisOptions().setPort(server.port()));
+    callerKeys = new String[callers];
+    for (int i = 0; i < callers; i++) {
+      callerKeys[i] = "key-" + i % keys;
+    }
+    for (int i = 0; i < keys; i++) {
+      Sync.await(client.asyncSet("key-" + i, "value"));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.out.println("commands per stampede: " + (double) (server.commands() - keys) / stampedes);
+    Sync.await(client.asyncClose());
+    server.close();
+    vertx.close();
+  }
+
+  @Benchmark
+  public CompositeFuture handler() {
+    stampedes++;
+    List<Future> futures = new ArrayList<>(callers);
+    for (String key : callerKeys) {
+      Future<String> future = Future.future();
+      client.get(key, future);
+      futures.add(future);
+    }
+    return Sync.await(CompositeFuture.all(futures));
+  }
+
+  @Benchmark
+  public CompositeFuture singleFlight() {
+    stampedes++;
+    List<Future> futures = new ArrayList<>(callers);
+    for (String key : callerKeys) {
+      futures.add(client.asyncGet(key));
+    }
+    return Sync.await(CompositeFuture.all(futures));
+  }
+}
@@ -0,0 +1,94 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.future.core.buffer.Buffer;
+import io.vertx.future.core.shareddata.Counter;
+import io.vertx.future.core.shareddata.Lock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tk.okou.vertx.future.wrapper.AsyncResultAdapter;
+import tk.okou.vertx.future.wrapper.TypeArg;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Hands a delegate result to a wrapper handler once the shared {@link AsyncResultAdapter} has converted results of
+ * four types, as in an application: its conversion call is megamorphic. The adapter generated for the wrapper with
+ * {@code codegen.future.wrapper.specialize} calls {@code newInstance} directly whatever the other types.
+ * <p>
+ * The identity conversions of the type arguments unknown to the generator, e.g. the values of an {@code AsyncMap},
+ * go through a function of their own and through the {@link TypeArg#identity} flag, which hands the handler over as
+ * is.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeArgBenchmark {
+
+  private final AsyncResult<io.vertx.core.shareddata.Counter> result = Future.succeededFuture(new WrapperOverheadBenchmark.RawCounter());
+  private final AsyncResult<Object> value = Future.succeededFuture("value");
+  private final TypeArg<Object> identityFunction = new TypeArg<>(Function.identity(), Function.identity());
+
+  @Setup
+  public void setup() {
+    Handler<AsyncResult<Object>> ignore = ar -> {
+    };
+    AsyncResult<io.vertx.core.buffer.Buffer> buffer = Future.succeededFuture(io.vertx.core.buffer.Buffer.buffer());
+    AsyncResult<io.vertx.core.shareddata.Lock> lock = Future.succeededFuture(() -> {
+    });
+    for (int i = 0; i < 100_000; i++) {
+      AsyncResultAdapter.<io.vertx.core.shareddata.Counter, Counter>wrapping(cast(ignore), Counter.__TYPE_ARG).handle(result);
+      AsyncResultAdapter.<io.vertx.core.buffer.Buffer, Buffer>wrapping(cast(ignore), Buffer.__TYPE_ARG).handle(buffer);
+      AsyncResultAdapter.<io.vertx.core.shareddata.Lock, Lock>wrapping(cast(ignore), Lock.__TYPE_ARG).handle(lock);
+      AsyncResultAdapter.<Object, Object>wrapping(ignore, identityFunction).handle(value);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Handler<AsyncResult<T>> cast(Handler<AsyncResult<Object>> handler) {
+    return (Handler) handler;
+  }
+
+  @Benchmark
+  public void sharedAdapter(Blackhole blackhole) {
+    Handler<AsyncResult<Counter>> handler = blackhole::consume;
+    Handler<AsyncResult<io.vertx.core.shareddata.Counter>> adapter = AsyncResultAdapter.wrapping(handler, Counter.__TYPE_ARG);
+    adapter.handle(result);
+  }
+
+  @Benchmark
+  public void specializedAdapter(Blackhole blackhole) {
+    Handler<AsyncResult<Counter>> handler = blackhole::consume;
+    Handler<AsyncResult<io.vertx.core.shareddata.Counter>> adapter = Counter.__wrappingResult(handler);
+    adapter.handle(result);
+  }
+
+  @Benchmark
+  public void identityFunction(Blackhole blackhole) {
+    Handler<AsyncResult<Object>> handler = blackhole::consume;
+    Handler<AsyncResult<Object>> adapter = AsyncResultAdapter.wrapping(handler, identityFunction);
+    adapter.handle(value);
+  }
+
+  @Benchmark
+  public void identityFlag(Blackhole blackhole) {
+    Handler<AsyncResult<Object>> handler = blackhole::consume;
+    Handler<AsyncResult<Object>> adapter = AsyncResultAdapter.wrapping(handler, TypeArg.unknown());
+    adapter.handle(value);
+  }
+}
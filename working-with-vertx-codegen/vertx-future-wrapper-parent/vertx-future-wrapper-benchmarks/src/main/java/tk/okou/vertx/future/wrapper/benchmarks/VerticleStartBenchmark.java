@@ -0,0 +1,131 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tk.okou.future.core.AbstractVerticle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deploys {@code verticles} verticles whose start runs {@code phases} tasks of a millisecond each, the time a
+ * connection or a bind takes, one after the other from {@code asyncStart()} and concurrently as start phases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerticleStartBenchmark {
+
+  @Param({"16"})
+  public int verticles;
+
+  @Param({"4"})
+  public int phases;
+
+  private Vertx vertx;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    vertx = Vertx.vertx();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  public List<String> sequential() throws Exception {
+    return deploy(false);
+  }
+
+  @Benchmark
+  public List<String> concurrent() throws Exception {
+    return deploy(true);
+  }
+
+  private List<String> deploy(boolean concurrent) throws Exception {
+    List<CompletableFuture<String>> deployments = new ArrayList<>();
+    for (int i = 0; i < verticles; i++) {
+      CompletableFuture<String> deployment = new CompletableFuture<>();
+      vertx.deployVerticle(new PhasedVerticle(phases, concurrent), ar -> {
+        if (ar.succeeded()) {
+          deployment.complete(ar.result());
+        } else {
+          deployment.completeExceptionally(ar.cause());
+        }
+      });
+      deployments.add(deployment);
+    }
+    List<String> ids = new ArrayList<>();
+    for (CompletableFuture<String> deployment : deployments) {
+      ids.add(deployment.get(10, TimeUnit.SECONDS));
+    }
+    CompletableFuture<Void> undeployed = new CompletableFuture<>();
+    Future<Void> all = Future.succeededFuture();
+    for (String id : ids) {
+      all = all.compose(v -> {
+        Future<Void> undeploy = Future.future();
+        vertx.undeploy(id, undeploy);
+        return undeploy;
+      });
+    }
+    all.setHandler(ar -> undeployed.complete(null));
+    undeployed.get(10, TimeUnit.SECONDS);
+    return ids;
+  }
+
+  public static class PhasedVerticle extends AbstractVerticle {
+    private final int phases;
+    private final boolean concurrent;
+
+    PhasedVerticle(int phases, boolean concurrent) {
+      this.phases = phases;
+      this.concurrent = concurrent;
+    }
+
+    @Override
+    public void start() {
+      if (concurrent) {
+        for (int i = 0; i < phases; i++) {
+          startPhase("phase" + i, this::phase);
+        }
+      }
+    }
+
+    @Override
+    public Future<Void> asyncStart() {
+      Future<Void> future = Future.succeededFuture();
+      if (!concurrent) {
+        for (int i = 0; i < phases; i++) {
+          future = future.compose(v -> phase());
+        }
+      }
+      return future;
+    }
+
+    private Future<Void> phase() {
+      Future<Void> future = Future.future();
+      vertx.setTimer(1, id -> future.complete());
+      return future;
+    }
+  }
+}
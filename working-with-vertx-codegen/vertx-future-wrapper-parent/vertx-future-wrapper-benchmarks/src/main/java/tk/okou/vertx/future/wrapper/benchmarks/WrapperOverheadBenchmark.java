@@ -0,0 +1,198 @@
+package tk.okou.vertx.future.wrapper.benchmarks;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.shareddata.AsyncMap;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Lock;
+import io.vertx.future.core.shareddata.Counter;
+import io.vertx.future.core.shareddata.SharedData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tk.okou.vertx.future.wrapper.TypeArg;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the generated {@code io.vertx.future} wrappers cost over calling {@code io.vertx.core} directly: wrapper
+ * creation, the handler adaptation of API results, {@code TypeArg} conversions and {@code asyncXxx} futures.
+ * The collection conversions are measured by {@link CollectionConversionBenchmark}.
+ * <p>
+ * The vert.x objects are stubs completing synchronously with shared results so that only the wrapper is measured.
+ * Run with {@link BenchmarkRunner} for the allocated bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WrapperOverheadBenchmark {
+
+  static class RawCounter implements io.vertx.core.shareddata.Counter {
+    static final AsyncResult<Long> VALUE = Future.succeededFuture(1L);
+    static final AsyncResult<Boolean> TRUE = Future.succeededFuture(true);
+
+    @Override
+    public void get(Handler<AsyncResult<Long>> resultHandler) {
+      resultHandler.handle(VALUE);
+    }
+
+    @Override
+    public void incrementAndGet(Handler<AsyncResult<Long>> resultHandler) {
+      resultHandler.handle(VALUE);
+    }
+
+    @Override
+    public void getAndIncrement(Handler<AsyncResult<Long>> resultHandler) {
+      resultHandler.handle(VALUE);
+    }
+
+    @Override
+    public void decrementAndGet(Handler<AsyncResult<Long>> resultHandler) {
+      resultHandler.handle(VALUE);
+    }
+
+    @Override
+    public void addAndGet(long value, Handler<AsyncResult<Long>> resultHandler) {
+      resultHandler.handle(VALUE);
+    }
+
+    @Override
+    public void getAndAdd(long value, Handler<AsyncResult<Long>> resultHandler) {
+      resultHandler.handle(VALUE);
+    }
+
+    @Override
+    public void compareAndSet(long expected, long value, Handler<AsyncResult<Boolean>> resultHandler) {
+      resultHandler.handle(TRUE);
+    }
+  }
+
+  static class RawSharedData implements io.vertx.core.shareddata.SharedData {
+    static final AsyncResult<io.vertx.core.shareddata.Counter> COUNTER = Future.succeededFuture(new RawCounter());
+
+    @Override
+    public void getCounter(String name, Handler<AsyncResult<io.vertx.core.shareddata.Counter>> resultHandler) {
+      resultHandler.handle(COUNTER);
+    }
+
+    @Override
+    public <K, V> void getClusterWideMap(String name, Handler<AsyncResult<AsyncMap<K, V>>> resultHandler) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <K, V> void getAsyncMap(String name, Handler<AsyncResult<AsyncMap<K, V>>> resultHandler) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void getLock(String name, Handler<AsyncResult<Lock>> resultHandler) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void getLockWithTimeout(String name, long timeout, Handler<AsyncResult<Lock>> resultHandler) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <K, V> LocalMap<K, V> getLocalMap(String name) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private final io.vertx.core.shareddata.SharedData rawSharedData = new RawSharedData();
+  private final io.vertx.core.shareddata.Counter rawCounter = RawSharedData.COUNTER.result();
+  private final SharedData sharedData = SharedData.newInstance(rawSharedData);
+  private final Counter counter = Counter.newInstance(rawCounter);
+  private final Object object = new Object();
+  private String name = "counter";
+
+  @Benchmark
+  public Counter newInstance() {
+    return Counter.newInstance(rawCounter);
+  }
+
+  @Benchmark
+  public void rawGetCounter(Blackhole blackhole) {
+    rawSharedData.getCounter(name, blackhole::consume);
+  }
+
+  @Benchmark
+  public void getCounter(Blackhole blackhole) {
+    sharedData.getCounter(name, blackhole::consume);
+  }
+
+  /**
+   * The anonymous {@code Handler<AsyncResult>} the generator emits to hand a wrapper handler to vert.x.
+   */
+  @Benchmark
+  public void handlerAdapter(Blackhole blackhole) {
+    Handler<AsyncResult<Counter>> handler = blackhole::consume;
+    Handler<AsyncResult<io.vertx.core.shareddata.Counter>> adapter = new Handler<AsyncResult<io.vertx.core.shareddata.Counter>>() {
+      public void handle(AsyncResult<io.vertx.core.shareddata.Counter> ar) {
+        if (ar.succeeded()) {
+          handler.handle(io.vertx.core.Future.succeededFuture(Counter.newInstance(ar.result())));
+        } else {
+          handler.handle(io.vertx.core.Future.failedFuture(ar.cause()));
+        }
+      }
+    };
+    adapter.handle(RawSharedData.COUNTER);
+  }
+
+  @Benchmark
+  public Future<io.vertx.core.shareddata.Counter> rawAsyncGetCounter() {
+    Future<io.vertx.core.shareddata.Counter> future = Future.future();
+    rawSharedData.getCounter(name, future);
+    return future;
+  }
+
+  @Benchmark
+  public Future<Counter> asyncGetCounter() {
+    return sharedData.asyncGetCounter(name);
+  }
+
+  @Benchmark
+  public Future<Long> rawAsyncGet() {
+    Future<Long> future = Future.future();
+    rawCounter.get(future);
+    return future;
+  }
+
+  @Benchmark
+  public Future<Long> asyncGet() {
+    return counter.asyncGet();
+  }
+
+  @Benchmark
+  public Counter typeArgWrap() {
+    return Counter.__TYPE_ARG.wrap(rawCounter);
+  }
+
+  @Benchmark
+  public Object typeArgUnwrap() {
+    return Counter.__TYPE_ARG.unwrap(counter);
+  }
+
+  @Benchmark
+  public Object unknownWrap() {
+    return TypeArg.unknown().wrap(object);
+  }
+
+  @Benchmark
+  public Object unknownUnwrap() {
+    return TypeArg.unknown().unwrap(object);
+  }
+}
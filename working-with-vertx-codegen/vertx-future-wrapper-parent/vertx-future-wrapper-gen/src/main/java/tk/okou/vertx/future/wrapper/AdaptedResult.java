@@ -0,0 +1,61 @@
+package tk.okou.vertx.future.wrapper;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+/**
+ * The {@link AsyncResult} handed to an adapted handler, converting the results is left to the subclasses: the
+ * {@link AsyncResultAdapter} with a {@link TypeArg}, the adapters generated per wrapper type with their
+ * {@code newInstance}.
+ */
+@SuppressWarnings("unchecked")
+public abstract class AdaptedResult<T> implements AsyncResult<T> {
+
+  /**
+   * Holds the cause of a failure in {@link #value}, only failures allocate it.
+   */
+  private static final class Failure {
+    private final Throwable cause;
+
+    private Failure(Throwable cause) {
+      this.cause = cause;
+    }
+  }
+
+  private final Handler<AsyncResult<T>> handler;
+  private Object value;
+
+  protected AdaptedResult(Handler<AsyncResult<T>> handler) {
+    this.handler = handler;
+  }
+
+  protected final void succeed(T result) {
+    value = result;
+    handler.handle(this);
+  }
+
+  protected final void fail(Throwable cause) {
+    value = new Failure(cause);
+    handler.handle(this);
+  }
+
+  @Override
+  public T result() {
+    return value instanceof Failure ? null : (T) value;
+  }
+
+  @Override
+  public Throwable cause() {
+    return value instanceof Failure ? ((Failure) value).cause : null;
+  }
+
+  @Override
+  public boolean succeeded() {
+    return !(value instanceof Failure);
+  }
+
+  @Override
+  public boolean failed() {
+    return value instanceof Failure;
+  }
+}
@@ -0,0 +1,59 @@
+package tk.okou.vertx.future.wrapper;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+import java.util.function.Function;
+
+/**
+ * Adapts a {@code Handler<AsyncResult>} between a wrapper type and its delegate type with a {@link TypeArg}, used
+ * by the generated code in place of an inlined lambda or anonymous class. The handler is used as is with an
+ * {@link TypeArg#identity} type arg.
+ * <p>
+ * The adapter is the {@link AsyncResult} handed to the adapted handler: the converted result is kept in the adapter
+ * instead of a new succeeded future. A handler keeping the {@code AsyncResult} sees the last result when the adapter
+ * is called again.
+ * <p>
+ * The generated wrappers of the concrete types adapt their results with an {@link AdaptedResult} of their own
+ * instead, whose conversion calls {@code newInstance} directly.
+ */
+@SuppressWarnings("unchecked")
+public final class AsyncResultAdapter<S, T> extends AdaptedResult<T> implements Handler<AsyncResult<S>> {
+
+  /**
+   * @return a handler of delegate results calling {@code handler} with the results wrapped by {@code typeArg}
+   */
+  public static <R, T> Handler<AsyncResult<R>> wrapping(Handler<AsyncResult<T>> handler, TypeArg<T> typeArg) {
+    if (handler == null || typeArg.identity) {
+      return (Handler) handler;
+    }
+    return new AsyncResultAdapter<>(handler, typeArg.wrap);
+  }
+
+  /**
+   * @return a handler of wrapper results calling {@code handler} with the results unwrapped by {@code typeArg}
+   */
+  public static <R, T> Handler<AsyncResult<T>> unwrapping(Handler<AsyncResult<R>> handler, TypeArg<T> typeArg) {
+    if (handler == null || typeArg.identity) {
+      return (Handler) handler;
+    }
+    return new AsyncResultAdapter<>(handler, typeArg.unwrap);
+  }
+
+  private final Function<? super S, ?> convert;
+
+  private AsyncResultAdapter(Handler<AsyncResult<T>> handler, Function<? super S, ?> convert) {
+    super(handler);
+    this.convert = convert;
+  }
+
+  @Override
+  public void handle(AsyncResult<S> ar) {
+    if (ar.succeeded()) {
+      S result = ar.result();
+      succeed(result != null ? (T) convert.apply(result) : null);
+    } else {
+      fail(ar.cause());
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package tk.okou.vertx.future.wrapper;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * The wire format of the message codecs generated for the binary service proxies: the primitives are written as is,
+ * the nullable values after a presence byte, the strings and the JSON values after their length, {@code -1} for
+ * {@code null}.
+ */
+public final class BinaryFormat {
+
+  /**
+   * The header of the messages whose body is written in this format, the other messages being JSON envelopes.
+   */
+  public static final String HEADER = "binary";
+
+  private BinaryFormat() {
+  }
+
+  /**
+   * Writes whether {@code value} is present, the caller writing it next when it is.
+   */
+  public static boolean present(Buffer buffer, Object value) {
+    buffer.appendByte(value != null ? (byte) 1 : (byte) 0);
+    return value != null;
+  }
+
+  public static void writeString(Buffer buffer, String value) {
+    if (value == null) {
+      buffer.appendInt(-1);
+    } else {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      buffer.appendInt(bytes.length).appendBytes(bytes);
+    }
+  }
+
+  public static void writeEnum(Buffer buffer, Enum<?> value) {
+    writeString(buffer, value != null ? value.name() : null);
+  }
+
+  public static void writeJsonObject(Buffer buffer, JsonObject value) {
+    writeBuffer(buffer, value != null ? value.toBuffer() : null);
+  }
+
+  public static void writeJsonArray(Buffer buffer, JsonArray value) {
+    writeBuffer(buffer, value != null ? value.toBuffer() : null);
+  }
+
+  private static void writeBuffer(Buffer buffer, Buffer value) {
+    if (value == null) {
+      buffer.appendInt(-1);
+    } else {
+      buffer.appendInt(value.length()).appendBuffer(value);
+    }
+  }
+
+  /**
+   * Reads the values written to a buffer in order.
+   */
+  public static final class Reader {
+    private final Buffer buffer;
+    private int pos;
+
+    public Reader(Buffer buffer, int pos) {
+      this.buffer = buffer;
+      this.pos = pos;
+    }
+
+    public boolean present() {
+      return buffer.getByte(pos++) != 0;
+    }
+
+    public boolean getBoolean() {
+      return buffer.getByte(pos++) != 0;
+    }
+
+    public byte getByte() {
+      return buffer.getByte(pos++);
+    }
+
+    public short getShort() {
+      short value = buffer.getShort(pos);
+      pos += 2;
+      return value;
+    }
+
+    public char getChar() {
+      return (char) getShort();
+    }
+
+    public int getInt() {
+      int value = buffer.getInt(pos);
+      pos += 4;
+      return value;
+    }
+
+    public long getLong() {
+      long value = buffer.getLong(pos);
+      pos += 8;
+      return value;
+    }
+
+    public float getFloat() {
+      float value = buffer.getFloat(pos);
+      pos += 4;
+      return value;
+    }
+
+    public double getDouble() {
+      double value = buffer.getDouble(pos);
+      pos += 8;
+      return value;
+    }
+
+    public String getString() {
+      Buffer bytes = getBuffer();
+      return bytes != null ? bytes.toString(StandardCharsets.UTF_8) : null;
+    }
+
+    public <E extends Enum<E>> E getEnum(Class<E> type) {
+      String name = getString();
+      return name != null ? Enum.valueOf(type, name) : null;
+    }
+
+    public JsonObject getJsonObject() {
+      Buffer bytes = getBuffer();
+      return bytes != null ? new JsonObject(bytes) : null;
+    }
+
+    public JsonArray getJsonArray() {
+      Buffer bytes = getBuffer();
+      return bytes != null ? new JsonArray(bytes) : null;
+    }
+
+    /**
+     * @return the data object created from its JSON by {@code constructor}
+     */
+    public <T> T getDataObject(Function<JsonObject, T> constructor) {
+      JsonObject json = getJsonObject();
+      return json != null ? constructor.apply(json) : null;
+    }
+
+    private Buffer getBuffer() {
+      int length = getInt();
+      if (length < 0) {
+        return null;
+      }
+      Buffer bytes = buffer.getBuffer(pos, pos + length);
+      pos += length;
+      return bytes;
+    }
+  }
+}
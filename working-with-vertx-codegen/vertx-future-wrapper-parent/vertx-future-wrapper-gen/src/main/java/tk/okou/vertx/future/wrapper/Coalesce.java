@@ -0,0 +1,16 @@
+package tk.okou.vertx.future.wrapper;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an idempotent async method of a {@code @VertxGen} API whose generated {@code asyncXxx} method shares the call
+ * in flight with the callers passing equal arguments, through a {@link SingleFlight}. Every overload of the name is
+ * coalesced.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface Coalesce {
+}
@@ -0,0 +1,150 @@
+package tk.okou.vertx.future.wrapper;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Read-only collection views converting their elements on access, used by the generated code in place of
+ * copying collections when {@code codegen.future.wrapper.lazyCollections} is set.
+ * <p>
+ * Converting a view back returns the collection it was created from, so a collection crossing the wrapper
+ * in both directions is never copied.
+ */
+@SuppressWarnings("unchecked")
+public final class CollectionViews {
+
+  private CollectionViews() {
+  }
+
+  public static <S, T> List<T> list(List<S> source, Function<? super S, ? extends T> mapper) {
+    if (source == null) {
+      return null;
+    }
+    if (source instanceof ListView) {
+      return (List<T>) ((ListView<?, S>) source).source;
+    }
+    return new ListView<>(source, mapper);
+  }
+
+  public static <S, T> Set<T> set(Set<S> source, Function<? super S, ? extends T> mapper) {
+    if (source == null) {
+      return null;
+    }
+    if (source instanceof SetView) {
+      return (Set<T>) ((SetView<?, S>) source).source;
+    }
+    return new SetView<>(source, mapper);
+  }
+
+  public static <K, S, T> Map<K, T> map(Map<K, S> source, Function<? super S, ? extends T> mapper) {
+    if (source == null) {
+      return null;
+    }
+    if (source instanceof MapView) {
+      return (Map<K, T>) ((MapView<K, ?, S>) source).source;
+    }
+    return new MapView<>(source, mapper);
+  }
+
+  private static <S, T> Iterator<T> iterator(Iterator<S> source, Function<? super S, ? extends T> mapper) {
+    return new Iterator<T>() {
+      @Override
+      public boolean hasNext() {
+        return source.hasNext();
+      }
+
+      @Override
+      public T next() {
+        return mapper.apply(source.next());
+      }
+    };
+  }
+
+  private static final class ListView<S, T> extends AbstractList<T> {
+    private final List<S> source;
+    private final Function<? super S, ? extends T> mapper;
+
+    private ListView(List<S> source, Function<? super S, ? extends T> mapper) {
+      this.source = source;
+      this.mapper = mapper;
+    }
+
+    @Override
+    public T get(int index) {
+      return mapper.apply(source.get(index));
+    }
+
+    @Override
+    public int size() {
+      return source.size();
+    }
+  }
+
+  private static final class SetView<S, T> extends AbstractSet<T> {
+    private final Set<S> source;
+    private final Function<? super S, ? extends T> mapper;
+
+    private SetView(Set<S> source, Function<? super S, ? extends T> mapper) {
+      this.source = source;
+      this.mapper = mapper;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return CollectionViews.iterator(source.iterator(), mapper);
+    }
+
+    @Override
+    public int size() {
+      return source.size();
+    }
+  }
+
+  private static final class MapView<K, S, T> extends AbstractMap<K, T> {
+    private final Map<K, S> source;
+    private final Function<? super S, ? extends T> mapper;
+
+    private MapView(Map<K, S> source, Function<? super S, ? extends T> mapper) {
+      this.source = source;
+      this.mapper = mapper;
+    }
+
+    @Override
+    public T get(Object key) {
+      S value = source.get(key);
+      return value != null ? mapper.apply(value) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return source.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+      return source.size();
+    }
+
+    @Override
+    public Set<Entry<K, T>> entrySet() {
+      return new AbstractSet<Entry<K, T>>() {
+        @Override
+        public Iterator<Entry<K, T>> iterator() {
+          return CollectionViews.<Entry<K, S>, Entry<K, T>>iterator(source.entrySet().iterator(),
+            entry -> new SimpleImmutableEntry<K, T>(entry.getKey(), mapper.apply(entry.getValue())));
+        }
+
+        @Override
+        public int size() {
+          return source.size();
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package tk.okou.vertx.future.wrapper;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link Metrics} used when no other is provided: counts the calls and failures, and their latency in a histogram
+ * of power of two buckets, with striped {@link LongAdder} counters so that concurrent calls do not contend.
+ * <p>
+ * The percentiles are the upper bound of their bucket, i.e. at most twice the actual latency.
+ */
+public class DefaultMetrics implements Metrics {
+
+  private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+  @Override
+  public Stats probe(String type, String method) {
+    return stats.computeIfAbsent(type + "#" + method, key -> new Stats());
+  }
+
+  /**
+   * @return the stats of the methods keyed by {@code type#method}
+   */
+  public Map<String, Stats> stats() {
+    return Collections.unmodifiableMap(stats);
+  }
+
+  public static class Stats extends Instrumentation.Probe {
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder[] buckets = new LongAdder[64];
+
+    Stats() {
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    @Override
+    public void record(long nanos, Throwable failure) {
+      // bucket i counts the latencies below 2^i nanoseconds
+      buckets[64 - Long.numberOfLeadingZeros(Math.max(nanos, 0))].increment();
+      totalNanos.add(nanos);
+      if (failure != null) {
+        failures.increment();
+      }
+    }
+
+    public long count() {
+      long count = 0;
+      for (LongAdder bucket : buckets) {
+        count += bucket.sum();
+      }
+      return count;
+    }
+
+    public long failures() {
+      return failures.sum();
+    }
+
+    public long meanNanos() {
+      long count = count();
+      return count > 0 ? totalNanos.sum() / count : 0;
+    }
+
+    /**
+     * @param percentile between {@code 0} and {@code 100}
+     * @return the latency in nanoseconds {@code percentile}% of the calls are below
+     */
+    public long percentileNanos(double percentile) {
+      long[] counts = new long[buckets.length];
+      long count = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        counts[i] = buckets[i].sum();
+        count += counts[i];
+      }
+      long rank = (long) Math.ceil(count * percentile / 100);
+      for (int i = 0; i < counts.length; i++) {
+        rank -= counts[i];
+        if (rank <= 0 && counts[i] > 0) {
+          return i == 63 ? Long.MAX_VALUE : 1L << i;
+        }
+      }
+      return 0;
+    }
+
+    @Override
+    public String toString() {
+      return "count=" + count() + ", failures=" + failures() + ", mean=" + meanNanos() + "ns, p50=" + percentileNanos(50) +
+        "ns, p99=" + percentileNanos(99) + "ns";
+    }
+  }
+}
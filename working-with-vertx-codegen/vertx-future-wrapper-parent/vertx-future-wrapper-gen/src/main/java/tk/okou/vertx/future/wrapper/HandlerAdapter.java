@@ -0,0 +1,49 @@
+package tk.okou.vertx.future.wrapper;
+
+import io.vertx.core.Handler;
+
+import java.util.function.Function;
+
+/**
+ * Adapts a {@code Handler} of events between a wrapper type and its delegate type with a {@link TypeArg}, used by
+ * the generated code in place of an inlined lambda or anonymous class. The handler is used as is with an
+ * {@link TypeArg#identity} type arg.
+ *
+ * @see AsyncResultAdapter
+ */
+@SuppressWarnings("unchecked")
+public final class HandlerAdapter<S, T> implements Handler<S> {
+
+  /**
+   * @return a handler of delegate events calling {@code handler} with the events wrapped by {@code typeArg}
+   */
+  public static <R, T> Handler<R> wrapping(Handler<T> handler, TypeArg<T> typeArg) {
+    if (handler == null || typeArg.identity) {
+      return (Handler) handler;
+    }
+    return new HandlerAdapter<>(handler, typeArg.wrap);
+  }
+
+  /**
+   * @return a handler of wrapper events calling {@code handler} with the events unwrapped by {@code typeArg}
+   */
+  public static <R, T> Handler<T> unwrapping(Handler<R> handler, TypeArg<T> typeArg) {
+    if (handler == null || typeArg.identity) {
+      return (Handler) handler;
+    }
+    return new HandlerAdapter<>(handler, typeArg.unwrap);
+  }
+
+  private final Handler<T> handler;
+  private final Function<? super S, ?> convert;
+
+  private HandlerAdapter(Handler<T> handler, Function<? super S, ?> convert) {
+    this.handler = handler;
+    this.convert = convert;
+  }
+
+  @Override
+  public void handle(S event) {
+    handler.handle(event != null ? (T) convert.apply(event) : null);
+  }
+}
@@ -1,15 +1,27 @@
 package tk.okou.vertx.future.wrapper;
 
 public class Helper {
+  private static final ClassValue<Class<?>> DELEGATES = new ClassValue<Class<?>>() {
+    @Override
+    protected Class<?> computeValue(Class<?> type) {
+      TypeRegistry.Entry entry = TypeRegistry.entry(type);
+      if (entry != null) {
+        return entry.delegate;
+      }
+      FutureGen futureGen = type.getAnnotation(FutureGen.class);
+      if (futureGen != null) {
+        return futureGen.value();
+      }
+      return type;
+    }
+  };
+
   public Helper() {
   }
 
   public static Class unwrap(Class<?> type) {
     if (type != null) {
-      FutureGen futureGen = type.getAnnotation(FutureGen.class);
-      if (futureGen != null) {
-        return futureGen.value();
-      }
+      return DELEGATES.get(type);
     }
 
     return type;
@@ -0,0 +1,92 @@
+package tk.okou.vertx.future.wrapper;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Latency and failures of the async calls of the wrappers generated with {@code codegen.future.wrapper.instrument},
+ * recorded by a {@link Probe} per wrapped type and method.
+ * <p>
+ * The calls are recorded when the JVM runs with {@code -Dtk.okou.vertx.future.wrapper.instrumentation=true}, by the
+ * first {@link Metrics} found by the {@link ServiceLoader} or else a {@link DefaultMetrics}. The generated code tests
+ * {@link #ENABLED} before tracking a call: the flag is a constant once the class is initialized, the JIT removes the
+ * tracking code when it is {@code false}.
+ */
+public final class Instrumentation {
+
+  public static final String PROPERTY = "tk.okou.vertx.future.wrapper.instrumentation";
+
+  public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+  private static final Probe NOOP = new Probe() {
+    @Override
+    public void record(long nanos, Throwable failure) {
+    }
+  };
+
+  private static final Metrics METRICS = ENABLED ? load() : null;
+
+  private Instrumentation() {
+  }
+
+  private static Metrics load() {
+    Iterator<Metrics> it = ServiceLoader.load(Metrics.class).iterator();
+    return it.hasNext() ? it.next() : new DefaultMetrics();
+  }
+
+  /**
+   * @return the metrics recording the calls, {@code null} when the instrumentation is not enabled
+   */
+  public static Metrics metrics() {
+    return METRICS;
+  }
+
+  /**
+   * @param type the wrapped type, e.g. {@code io.vertx.redis.RedisClient}
+   * @param method the method, e.g. {@code get}
+   * @return the probe recording the calls of the method, a probe recording nothing when the instrumentation is not
+   * enabled
+   */
+  public static Probe probe(String type, String method) {
+    return ENABLED ? METRICS.probe(type, method) : NOOP;
+  }
+
+  /**
+   * Records the calls of a method.
+   */
+  public abstract static class Probe {
+
+    /**
+     * @return a handler recording the time elapsed from now to its result before calling {@code handler}
+     */
+    public final <T> Handler<AsyncResult<T>> track(Handler<AsyncResult<T>> handler) {
+      return handler != null ? new Timing<>(this, handler) : null;
+    }
+
+    /**
+     * @param nanos the time elapsed from the call to its result
+     * @param failure the cause of the failure, {@code null} when the call succeeded
+     */
+    public abstract void record(long nanos, Throwable failure);
+  }
+
+  private static final class Timing<T> implements Handler<AsyncResult<T>> {
+    private final Probe probe;
+    private final Handler<AsyncResult<T>> handler;
+    private final long start = System.nanoTime();
+
+    private Timing(Probe probe, Handler<AsyncResult<T>> handler) {
+      this.probe = probe;
+      this.handler = handler;
+    }
+
+    @Override
+    public void handle(AsyncResult<T> ar) {
+      probe.record(System.nanoTime() - start, ar.failed() ? ar.cause() : null);
+      handler.handle(ar);
+    }
+  }
+}
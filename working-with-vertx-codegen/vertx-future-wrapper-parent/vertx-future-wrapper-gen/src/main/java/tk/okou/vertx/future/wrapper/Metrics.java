@@ -0,0 +1,17 @@
+package tk.okou.vertx.future.wrapper;
+
+/**
+ * Records the calls tracked by the {@link Instrumentation}, provided as a {@link java.util.ServiceLoader} service
+ * {@code META-INF/services/tk.okou.vertx.future.wrapper.Metrics} to publish them to a metrics library.
+ */
+public interface Metrics {
+
+  /**
+   * Called once per instrumented method when its wrapper class is initialized.
+   *
+   * @param type the wrapped type, e.g. {@code io.vertx.redis.RedisClient}
+   * @param method the method, e.g. {@code get}, overloaded methods share their probe
+   * @return the probe recording the calls of the method, called concurrently
+   */
+  Instrumentation.Probe probe(String type, String method);
+}
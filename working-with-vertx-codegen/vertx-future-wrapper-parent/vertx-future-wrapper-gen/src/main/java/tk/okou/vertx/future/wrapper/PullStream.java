@@ -0,0 +1,189 @@
+package tk.okou.vertx.future.wrapper;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Pulls the events of a {@link ReadStream} with futures, used by the {@code asyncNext} methods of the generated
+ * read stream wrappers.
+ * <p>
+ * The events are queued in a ring buffer of {@code capacity} events: the stream is paused when the buffer is three
+ * quarters full and resumed when it is drained to a quarter, the buffer only grows past its capacity for the events
+ * a stream still delivers once paused. A pull completes with the queued events right away, or with the next event
+ * when none is queued. The end of the stream completes the pulls with {@code null} or an empty batch, a failure of
+ * the stream fails them once the events queued before it are pulled.
+ * <p>
+ * The pulls are not meant to be mixed with the {@code handler} of the stream, and a pull is to be made once the
+ * previous one completed.
+ */
+@SuppressWarnings("unchecked")
+public final class PullStream<T> implements Handler<Object> {
+
+  public static final int DEFAULT_CAPACITY = 256;
+
+  private final ReadStream<Object> stream;
+  private final Function<Object, T> convert;
+  private final int high;
+  private final int low;
+  private Object[] ring;
+  private int head;
+  private int size;
+  private boolean started;
+  private boolean paused;
+  private boolean ended;
+  private Throwable failure;
+  private Future<Object> waiter;
+  private int waiterMax;
+
+  public PullStream(ReadStream<?> stream, Function<Object, T> convert, int capacity) {
+    if (capacity < 4) {
+      throw new IllegalArgumentException("capacity must be at least 4: " + capacity);
+    }
+    this.stream = (ReadStream<Object>) stream;
+    this.convert = convert;
+    this.ring = new Object[Integer.highestOneBit(capacity - 1) << 1];
+    this.high = capacity - capacity / 4;
+    this.low = capacity / 4;
+  }
+
+  /**
+   * @return the next event, {@code null} at the end of the stream
+   */
+  public Future<T> next() {
+    return pull(0);
+  }
+
+  /**
+   * @return the queued events up to {@code max}, or the next event when none is queued, an empty list at the end of
+   * the stream
+   */
+  public Future<List<T>> next(int max) {
+    if (max <= 0) {
+      throw new IllegalArgumentException("max must be positive: " + max);
+    }
+    return pull(max);
+  }
+
+  private <R> Future<R> pull(int max) {
+    Future<Object> future = Future.future();
+    boolean start;
+    boolean resume = false;
+    synchronized (this) {
+      if (waiter != null) {
+        return Future.failedFuture(new IllegalStateException("The previous pull is not complete"));
+      }
+      if (size > 0) {
+        future.complete(take(max));
+        if (paused && size <= low) {
+          paused = false;
+          resume = true;
+        }
+      } else if (failure != null) {
+        future.fail(failure);
+      } else if (ended) {
+        future.complete(max == 0 ? null : Collections.emptyList());
+      } else {
+        waiter = future;
+        waiterMax = max;
+      }
+      start = !started;
+      started = true;
+    }
+    if (start) {
+      stream.exceptionHandler(this::failed);
+      stream.endHandler(this::ended);
+      stream.handler(this);
+    } else if (resume) {
+      stream.resume();
+    }
+    return (Future<R>) future;
+  }
+
+  @Override
+  public void handle(Object event) {
+    T converted = event != null ? convert.apply(event) : null;
+    Future<Object> pending;
+    boolean pause = false;
+    synchronized (this) {
+      pending = waiter;
+      if (pending != null) {
+        waiter = null;
+      } else {
+        offer(converted);
+        if (!paused && size >= high) {
+          paused = true;
+          pause = true;
+        }
+      }
+    }
+    if (pending != null) {
+      pending.complete(waiterMax == 0 ? converted : Collections.singletonList(converted));
+    } else if (pause) {
+      stream.pause();
+    }
+  }
+
+  private void ended(Void ignore) {
+    Future<Object> pending;
+    synchronized (this) {
+      ended = true;
+      pending = waiter;
+      waiter = null;
+    }
+    if (pending != null) {
+      pending.complete(waiterMax == 0 ? null : Collections.emptyList());
+    }
+  }
+
+  private void failed(Throwable cause) {
+    Future<Object> pending;
+    synchronized (this) {
+      if (failure == null) {
+        failure = cause;
+      }
+      pending = waiter;
+      waiter = null;
+    }
+    if (pending != null) {
+      pending.fail(cause);
+    }
+  }
+
+  private void offer(Object event) {
+    if (size == ring.length) {
+      Object[] grown = new Object[ring.length << 1];
+      for (int i = 0; i < size; i++) {
+        grown[i] = ring[(head + i) & (ring.length - 1)];
+      }
+      ring = grown;
+      head = 0;
+    }
+    ring[(head + size++) & (ring.length - 1)] = event;
+  }
+
+  private Object take(int max) {
+    if (max == 0) {
+      return poll();
+    }
+    int count = Math.min(max, size);
+    List<Object> batch = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      batch.add(poll());
+    }
+    return batch;
+  }
+
+  private Object poll() {
+    Object event = ring[head];
+    ring[head] = null;
+    head = (head + 1) & (ring.length - 1);
+    size--;
+    return event;
+  }
+}
@@ -0,0 +1,178 @@
+package tk.okou.vertx.future.wrapper;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Shares the call in flight for a key between its callers: a call made while an equal call is in flight waits for the
+ * result of that call instead of calling again.
+ * <pre>
+ * SingleFlight flights = new SingleFlight();
+ * flights.call(key, () -&gt; redis.asyncGet(key))
+ * </pre>
+ * The wrappers generated with {@code codegen.future.wrapper.singleFlight}, or whose API method is annotated with
+ * {@link Coalesce}, share the calls of a method this way, keyed by the delegate and the arguments.
+ * <p>
+ * Each caller gets a future of its own, completed on its context. All the callers share the same result, so they must
+ * not modify it. Only coalesce idempotent calls: a caller joining a call may see the result of a call that started
+ * before its own request.
+ * <p>
+ * The flights are found in a {@link ConcurrentHashMap} and joined with a compare-and-set on their list of callers. A
+ * flight removes itself from the map when its call completes.
+ */
+public final class SingleFlight {
+
+  private final ConcurrentHashMap<Object, Flight<?>> flights = new ConcurrentHashMap<>();
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder joins = new LongAdder();
+
+  /**
+   * @return the key of the arguments, equal to the keys of equal arguments
+   */
+  public static Object key(Object... args) {
+    return new Key(args);
+  }
+
+  /**
+   * @return the result of the call of {@code key} in flight, or else of {@code call}
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Future<T> call(Object key, Supplier<Future<T>> call) {
+    Future<T> caller = Future.future();
+    Context context = Vertx.currentContext();
+    while (true) {
+      Flight<T> flight = (Flight<T>) flights.get(key);
+      if (flight != null) {
+        if (flight.join(caller, context)) {
+          joins.increment();
+          return caller;
+        }
+        // completed, removing itself
+        flights.remove(key, flight);
+        continue;
+      }
+      Flight<T> created = new Flight<>(this, key, caller, context);
+      if (flights.putIfAbsent(key, created) != null) {
+        continue;
+      }
+      calls.increment();
+      Future<T> result;
+      try {
+        result = call.get();
+      } catch (RuntimeException e) {
+        result = Future.failedFuture(e);
+      }
+      result.setHandler(created);
+      return caller;
+    }
+  }
+
+  /**
+   * @return the number of calls in flight
+   */
+  public int inFlight() {
+    return flights.size();
+  }
+
+  /**
+   * @return the number of calls made
+   */
+  public long calls() {
+    return calls.sum();
+  }
+
+  /**
+   * @return the number of callers that joined a call in flight
+   */
+  public long joins() {
+    return joins.sum();
+  }
+
+  private static final class Key {
+    private final Object[] args;
+    private final int hash;
+
+    private Key(Object[] args) {
+      this.args = args;
+      this.hash = Arrays.hashCode(args);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o || o instanceof Key && hash == ((Key) o).hash && Arrays.equals(args, ((Key) o).args);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private static final class Waiter<T> {
+    private final Future<T> future;
+    private final Context context;
+    private final Waiter<T> next;
+
+    private Waiter(Future<T> future, Context context, Waiter<T> next) {
+      this.future = future;
+      this.context = context;
+      this.next = next;
+    }
+  }
+
+  private static final class Flight<T> implements Handler<AsyncResult<T>> {
+    private static final Waiter<?> DONE = new Waiter<>(null, null, null);
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Flight, Waiter> WAITERS = AtomicReferenceFieldUpdater.newUpdater(Flight.class, Waiter.class, "waiters");
+
+    private final SingleFlight owner;
+    private final Object key;
+    private volatile Waiter<T> waiters;
+
+    private Flight(SingleFlight owner, Object key, Future<T> caller, Context context) {
+      this.owner = owner;
+      this.key = key;
+      this.waiters = new Waiter<>(caller, context, null);
+    }
+
+    /**
+     * @return {@code false} when the call is complete already
+     */
+    private boolean join(Future<T> caller, Context context) {
+      while (true) {
+        Waiter<T> head = waiters;
+        if (head == DONE) {
+          return false;
+        }
+        if (WAITERS.compareAndSet(this, head, new Waiter<>(caller, context, head))) {
+          return true;
+        }
+      }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handle(AsyncResult<T> ar) {
+      owner.flights.remove(key, this);
+      Waiter<T> waiter = WAITERS.getAndSet(this, DONE);
+      Context current = Vertx.currentContext();
+      for (; waiter != null; waiter = waiter.next) {
+        Future<T> future = waiter.future;
+        if (waiter.context == null || waiter.context == current) {
+          future.handle(ar);
+        } else {
+          waiter.context.runOnContext(v -> future.handle(ar));
+        }
+      }
+    }
+  }
+}
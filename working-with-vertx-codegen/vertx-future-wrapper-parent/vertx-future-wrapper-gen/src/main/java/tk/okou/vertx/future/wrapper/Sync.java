@@ -0,0 +1,81 @@
+package tk.okou.vertx.future.wrapper;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.VertxException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Blocking access to the futures of the generated wrappers, used by the {@code SyncWrapper} facades.
+ * <p>
+ * {@link #await} parks the calling thread until the future completes and fails fast on an event loop thread.
+ * Run the blocking code on the {@link #executor()}, a virtual thread per task when the JVM has them, otherwise
+ * cached daemon threads.
+ */
+public final class Sync {
+
+  private static final ExecutorService EXECUTOR = createExecutor();
+
+  private Sync() {
+  }
+
+  /**
+   * @return the executor running blocking code off the event loop
+   */
+  public static ExecutorService executor() {
+    return EXECUTOR;
+  }
+
+  /**
+   * Waits for {@code future} to complete.
+   *
+   * @return the result of the future
+   * @throws IllegalStateException when called on an event loop thread
+   * @throws VertxException wrapping the failure of the future when it is a checked exception
+   */
+  public static <T> T await(Future<T> future) {
+    if (!future.isComplete()) {
+      if (Context.isOnEventLoopThread()) {
+        throw new IllegalStateException("Cannot block the event loop thread " + Thread.currentThread().getName());
+      }
+      CountDownLatch latch = new CountDownLatch(1);
+      future.setHandler(ar -> latch.countDown());
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new VertxException(e);
+      }
+    }
+    if (future.succeeded()) {
+      return future.result();
+    }
+    Throwable cause = future.cause();
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    throw new VertxException(cause);
+  }
+
+  private static ExecutorService createExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      AtomicInteger count = new AtomicInteger();
+      ThreadFactory factory = runnable -> {
+        Thread thread = new Thread(runnable, "vert.x-sync-thread-" + count.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      };
+      return Executors.newCachedThreadPool(factory);
+    }
+  }
+}
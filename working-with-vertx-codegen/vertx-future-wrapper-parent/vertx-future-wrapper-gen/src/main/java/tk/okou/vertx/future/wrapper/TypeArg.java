@@ -4,23 +4,41 @@ import java.lang.reflect.Field;
 import java.util.function.Function;
 
 /**
+ * Converts the values of a type parameter between the wrapper and the delegate types.
+ * <p>
+ * The types without a wrapper share the {@link #unknown()} type arg, flagged {@link #identity}: {@link #wrap(Object)}
+ * and {@link #unwrap(Object)} return the value as is without calling a conversion function, so that the conversion
+ * call sites of the generic wrappers only see the functions of the wrapper types and stay monomorphic.
+ *
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
 @SuppressWarnings("unchecked")
 public class TypeArg<T> {
 
-  private static TypeArg UNKNOWN = new TypeArg<>(Function.identity(), Function.identity());
+  private static final TypeArg<?> UNKNOWN = new TypeArg<Object>(Function.identity(), Function.identity(), true);
 
-  public static <U> TypeArg<U> of(Class<U> type) {
-    FutureGen futureGen = type.getAnnotation(FutureGen.class);
-    if (futureGen != null) {
-      try {
-        Field field = type.getField("__TYPE_ARG");
-        return (TypeArg<U>) field.get(null);
-      } catch (Exception ignore) {
+  private static final ClassValue<TypeArg<?>> TYPE_ARGS = new ClassValue<TypeArg<?>>() {
+    @Override
+    protected TypeArg<?> computeValue(Class<?> type) {
+      TypeRegistry.Entry entry = TypeRegistry.entry(type);
+      if (entry != null) {
+        return entry.typeArg();
+      }
+      // not generated by a registered module
+      FutureGen futureGen = type.getAnnotation(FutureGen.class);
+      if (futureGen != null) {
+        try {
+          Field field = type.getField("__TYPE_ARG");
+          return (TypeArg<?>) field.get(null);
+        } catch (Exception ignore) {
+        }
       }
+      return unknown();
     }
-    return unknown();
+  };
+
+  public static <U> TypeArg<U> of(Class<U> type) {
+    return (TypeArg<U>) TYPE_ARGS.get(type);
   }
 
   public static <T> TypeArg<T> unknown() {
@@ -30,16 +48,27 @@ public class TypeArg<T> {
   public final Function<Object, Object> wrap;
   public final Function<T, Object> unwrap;
 
+  /**
+   * Whether the values are the same for the wrapper and the delegate, {@link #wrap} and {@link #unwrap} being the
+   * identity.
+   */
+  public final boolean identity;
+
   public TypeArg(Function<Object, Object> wrap, Function<T, Object> unwrap) {
+    this(wrap, unwrap, false);
+  }
+
+  private TypeArg(Function<Object, Object> wrap, Function<T, Object> unwrap, boolean identity) {
     this.wrap = wrap;
     this.unwrap = unwrap;
+    this.identity = identity;
   }
 
   public T wrap(Object o) {
-    return o != null ? (T) wrap.apply(o) : null;
+    return o == null || identity ? (T) o : (T) wrap.apply(o);
   }
 
   public <X> X unwrap(T o) {
-    return o != null ? (X) unwrap.apply(o) : null;
+    return o == null || identity ? (X) o : (X) unwrap.apply(o);
   }
 }
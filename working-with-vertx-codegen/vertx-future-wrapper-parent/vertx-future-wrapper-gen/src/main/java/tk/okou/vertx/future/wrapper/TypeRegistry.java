@@ -0,0 +1,63 @@
+package tk.okou.vertx.future.wrapper;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Maps the wrapper classes of a module to their delegate classes and {@link TypeArg}s.
+ * <p>
+ * A registry is generated for each module and discovered with the {@link ServiceLoader}, the {@link TypeArg}s
+ * are read from the generated {@code __TYPE_ARG} fields without reflection.
+ */
+public abstract class TypeRegistry {
+
+  static final class Entry {
+    final Class<?> delegate;
+    private final TypeRegistry registry;
+    private final int index;
+
+    private Entry(Class<?> delegate, TypeRegistry registry, int index) {
+      this.delegate = delegate;
+      this.registry = registry;
+      this.index = index;
+    }
+
+    TypeArg<?> typeArg() {
+      return index >= 0 ? registry.typeArg(index) : TypeArg.unknown();
+    }
+  }
+
+  private static final Map<Class<?>, Entry> ENTRIES = new IdentityHashMap<>();
+
+  static {
+    for (TypeRegistry registry : ServiceLoader.load(TypeRegistry.class, TypeRegistry.class.getClassLoader())) {
+      registry.register();
+    }
+  }
+
+  static Entry entry(Class<?> wrapper) {
+    return ENTRIES.get(wrapper);
+  }
+
+  /**
+   * Register a wrapper class.
+   *
+   * @param wrapper  the wrapper class
+   * @param delegate the wrapped vert.x class
+   * @param index    the index passed to {@link #typeArg(int)}, or {@code -1} when the wrapper has no {@code __TYPE_ARG}
+   */
+  protected final void add(Class<?> wrapper, Class<?> delegate, int index) {
+    ENTRIES.put(wrapper, new Entry(delegate, this, index));
+  }
+
+  /**
+   * Called once, when the registry is loaded, to {@link #add} the wrapper classes of the module.
+   */
+  protected abstract void register();
+
+  /**
+   * @return the {@code __TYPE_ARG} of the wrapper registered with {@code index}
+   */
+  protected abstract TypeArg<?> typeArg(int index);
+}
@@ -0,0 +1,131 @@
+package tk.okou.vertx.future.wrapper;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * A bounded identity cache from delegates to their wrapper, used by the generated {@code newInstance} methods
+ * when {@code codegen.future.wrapper.intern} is set so that wrapping the same delegate again returns the same
+ * wrapper.
+ * <p>
+ * Wrappers are weakly referenced, the cache never keeps a wrapper or its delegate alive. Lookups are lock free. A
+ * miss looks the delegate up again and caches its wrapper under a lock striped by the slots of the delegate, so that
+ * the threads missing the same delegate at once return the same wrapper.
+ */
+public final class WrapperCache<D, W> {
+
+  public enum Eviction {
+    /**
+     * One slot per delegate hash, a new wrapper replaces the one in its slot.
+     */
+    REPLACE,
+    /**
+     * Two slots per delegate hash, a new wrapper replaces a collected wrapper first, then a wrapper not used
+     * since the last eviction.
+     */
+    SECOND_CHANCE
+  }
+
+  private static final class Entry<W> extends WeakReference<W> {
+    volatile boolean referenced;
+
+    Entry(W wrapper) {
+      super(wrapper);
+    }
+  }
+
+  public static <D, W> WrapperCache<D, W> create(int capacity, Eviction eviction, Function<W, D> delegate) {
+    return new WrapperCache<>(capacity, eviction, delegate);
+  }
+
+  private static final int LOCKS = 64;
+
+  private final AtomicReferenceArray<Entry<W>> slots;
+  private final Object[] locks;
+  private final int mask;
+  private final Eviction eviction;
+  private final Function<W, D> delegate;
+
+  private WrapperCache(int capacity, Eviction eviction, Function<W, D> delegate) {
+    if (capacity < 2) {
+      throw new IllegalArgumentException("capacity must be greater than 1: " + capacity);
+    }
+    int size = Integer.highestOneBit(capacity - 1) << 1;
+    this.slots = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+    this.locks = new Object[Math.min(LOCKS, size)];
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new Object();
+    }
+    this.eviction = eviction;
+    this.delegate = delegate;
+  }
+
+  /**
+   * @return the wrapper of {@code delegate}, created with {@code factory} when it is not cached
+   */
+  public W get(D delegate, Function<D, W> factory) {
+    int hash = System.identityHashCode(delegate);
+    int first = (hash ^ (hash >>> 16)) & mask;
+    int second = eviction == Eviction.SECOND_CHANCE ? first ^ 1 : first;
+    W wrapper = lookup(first, second, delegate);
+    if (wrapper != null) {
+      return wrapper;
+    }
+    // both slots of a delegate share a lock, the writers of the slots can't cache the delegate twice
+    synchronized (locks[(first >>> 1) & (locks.length - 1)]) {
+      wrapper = lookup(first, second, delegate);
+      if (wrapper == null) {
+        wrapper = factory.apply(delegate);
+        slots.set(victim(first, second), new Entry<>(wrapper));
+      }
+      return wrapper;
+    }
+  }
+
+  private W lookup(int first, int second, D delegate) {
+    W wrapper = lookup(first, delegate);
+    if (wrapper == null && second != first) {
+      wrapper = lookup(second, delegate);
+    }
+    return wrapper;
+  }
+
+  private W lookup(int index, D delegate) {
+    Entry<W> entry = slots.get(index);
+    if (entry != null) {
+      W wrapper = entry.get();
+      if (wrapper != null && this.delegate.apply(wrapper) == delegate) {
+        if (!entry.referenced) {
+          entry.referenced = true;
+        }
+        return wrapper;
+      }
+    }
+    return null;
+  }
+
+  private int victim(int first, int second) {
+    if (first == second) {
+      return first;
+    }
+    Entry<W> a = slots.get(first);
+    if (a == null || a.get() == null) {
+      return first;
+    }
+    Entry<W> b = slots.get(second);
+    if (b == null || b.get() == null) {
+      return second;
+    }
+    if (!a.referenced) {
+      return first;
+    }
+    if (!b.referenced) {
+      return second;
+    }
+    a.referenced = false;
+    b.referenced = false;
+    return first;
+  }
+}
@@ -0,0 +1,730 @@
+package tk.okou.vertx.future.wrapper.generator;
+
+import io.vertx.codegen.ClassModel;
+import io.vertx.codegen.GenException;
+import io.vertx.codegen.Generator;
+import io.vertx.codegen.MethodInfo;
+import io.vertx.codegen.ParamInfo;
+import io.vertx.codegen.annotations.ProxyClose;
+import io.vertx.codegen.annotations.ProxyGen;
+import io.vertx.codegen.annotations.ProxyIgnore;
+import io.vertx.codegen.type.ClassKind;
+import io.vertx.codegen.type.ParameterizedTypeInfo;
+import io.vertx.codegen.type.TypeInfo;
+import io.vertx.codegen.writer.CodeWriter;
+import tk.okou.vertx.future.wrapper.BinaryFormat;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import java.io.StringWriter;
+import java.lang.annotation.Annotation;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static io.vertx.codegen.type.ClassKind.*;
+
+/**
+ * Generates for each {@code @ProxyGen} service a proxy, a proxy handler and the {@code MessageCodec} they exchange the
+ * calls with: the arguments and the results are written in the {@link BinaryFormat} instead of a {@code JsonObject}
+ * envelope, and handed over as is to the consumers of the same Vert.x instance.
+ * <p>
+ * The binary messages carry the {@link BinaryFormat#HEADER} header, the proxy handler serves the JSON proxies too and
+ * the proxy sends JSON envelopes to the JSON proxy handlers when created with {@code binary} {@code false}.
+ * <p>
+ * The parameters and the results are primitives, strings, enums, JSON values or data objects: the services with other
+ * types, e.g. lists or maps, are skipped with a note and keep their JSON proxies only.
+ * <p>
+ * A method is identified in the binary messages by a code, its index among the proxied methods sorted by name and
+ * signature, the replies by {@code REPLY | code} in a byte, so a service proxies at most {@value #MAX_METHODS}
+ * methods. Adding, removing or changing a method shifts the codes: the name of the codec, sent along the binary
+ * messages of a cluster, ends with a hash of the signatures, so that the nodes generated from another version of the
+ * service reject the messages instead of calling another method.
+ */
+class BinaryProxyGenerator extends Generator<ClassModel> {
+
+  static final String PROXY_SUFFIX = "BinaryEBProxy";
+  static final String HANDLER_SUFFIX = "BinaryProxyHandler";
+  static final String CODEC_SUFFIX = "BinaryCodec";
+  static final int MAX_METHODS = 127;
+
+  private static final Logger log = Logger.getLogger(BinaryProxyGenerator.class.getName());
+
+  private static final Map<String, String> BASIC_TYPES = new HashMap<>();
+
+  static {
+    String[][] types = {
+      {"boolean", "Boolean", "Boolean"}, {"byte", "Byte", "Byte"}, {"short", "Short", "Short"},
+      {"char", "Character", "Char"}, {"int", "Integer", "Int"}, {"long", "Long", "Long"},
+      {"float", "Float", "Float"}, {"double", "Double", "Double"}
+    };
+    for (String[] type : types) {
+      BASIC_TYPES.put(type[0], type[2]);
+      BASIC_TYPES.put("java.lang." + type[1], type[2]);
+    }
+  }
+
+  private final FutureWrapperGenerator futureWrapper;
+  private final String suffix;
+
+  BinaryProxyGenerator(FutureWrapperGenerator futureWrapper, String suffix) {
+    this.futureWrapper = futureWrapper;
+    this.suffix = suffix;
+    this.name = "BinaryProxy";
+    this.kinds = Collections.singleton("proxy");
+  }
+
+  @Override
+  public Collection<Class<? extends Annotation>> annotations() {
+    return Collections.singletonList(ProxyGen.class);
+  }
+
+  @Override
+  public String filename(ClassModel model) {
+    String unsupported = unsupported(model);
+    if (unsupported != null) {
+      if (suffix.equals(PROXY_SUFFIX)) {
+        log.info("Skipping the binary proxy of " + model.getFqn() + ": " + unsupported);
+      }
+      return null;
+    }
+    return model.getType().getName() + suffix + ".java";
+  }
+
+  @Override
+  public String render(ClassModel model, int index, int size, Map<String, Object> session) {
+    List<MethodInfo> methods = proxyMethods(model);
+    StringWriter buffer = new StringWriter();
+    CodeWriter writer = new CodeWriter(buffer);
+    futureWrapper.generateLicense(writer);
+    writer.print("package ");
+    writer.print(model.getType().getPackageName());
+    writer.println(";");
+    writer.println();
+    switch (suffix) {
+      case PROXY_SUFFIX:
+        genProxy(model, methods, writer);
+        break;
+      case HANDLER_SUFFIX:
+        genHandler(model, methods, writer);
+        break;
+      default:
+        genCodec(model, methods, writer);
+    }
+    return buffer.toString();
+  }
+
+  /**
+   * @return the proxied methods by name and signature, the index of a method being its code in the binary messages
+   */
+  private List<MethodInfo> proxyMethods(ClassModel model) {
+    List<MethodInfo> methods = methods(model);
+    if (methods.size() > MAX_METHODS) {
+      throw new GenException(model.getElement(), "Binary proxies support at most " + MAX_METHODS + " methods, " + model.getFqn() + " has " + methods.size());
+    }
+    return methods;
+  }
+
+  private List<MethodInfo> methods(ClassModel model) {
+    return model.getMethods().stream()
+      .filter(method -> !method.isStaticMethod() && !method.isDefaultMethod() && !isAnnotated(model, method, ProxyIgnore.class))
+      .sorted(Comparator.comparing((MethodInfo method) -> method.getName()).thenComparing(this::signature))
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * @return why the binary messages cannot carry the calls of the service, {@code null} when they can
+   */
+  private String unsupported(ClassModel model) {
+    for (MethodInfo method : methods(model)) {
+      for (ParamInfo param : params(method)) {
+        if (!isSupported(param.getType())) {
+          return "the parameter " + param.getName() + " of " + method.getName() + " is a " + param.getType().getName();
+        }
+      }
+      TypeInfo result = resultType(method);
+      if (result != null && result.getKind() != VOID && !isSupported(result)) {
+        return "the result of " + method.getName() + " is a " + result.getName();
+      }
+      if (method.getReturnType().getKind() != VOID && !method.isFluent()) {
+        return method.getName() + " returns a " + method.getReturnType().getName();
+      }
+    }
+    return null;
+  }
+
+  private String signature(MethodInfo method) {
+    return method.getName() + method.getParams().stream().map(param -> param.getType().getName()).collect(Collectors.joining(",", "(", ")"));
+  }
+
+  private boolean isAnnotated(ClassModel model, MethodInfo method, Class<? extends Annotation> annotation) {
+    for (Element element : model.getElement().getEnclosedElements()) {
+      if (element.getKind() == ElementKind.METHOD && element.getSimpleName().contentEquals(method.getName()) && element.getAnnotation(annotation) != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isSupported(TypeInfo type) {
+    ClassKind kind = type.getKind();
+    return kind.basic || kind.json || kind == ENUM || kind == DATA_OBJECT;
+  }
+
+  /**
+   * @return the type of the {@code AsyncResult} of the last parameter, {@code null} when the method does not reply
+   */
+  private TypeInfo resultType(MethodInfo method) {
+    List<ParamInfo> params = method.getParams();
+    if (params.isEmpty()) {
+      return null;
+    }
+    TypeInfo last = params.get(params.size() - 1).getType();
+    if (last.getKind() == HANDLER) {
+      TypeInfo event = ((ParameterizedTypeInfo) last).getArg(0);
+      if (event.getKind() == ASYNC_RESULT) {
+        return ((ParameterizedTypeInfo) event).getArg(0);
+      }
+    }
+    return null;
+  }
+
+  private List<ParamInfo> params(MethodInfo method) {
+    List<ParamInfo> params = method.getParams();
+    return resultType(method) != null ? params.subList(0, params.size() - 1) : params;
+  }
+
+  private String simpleName(ClassModel model, String suffix) {
+    return model.getType().getSimpleName() + suffix;
+  }
+
+  private void genProxy(ClassModel model, List<MethodInfo> methods, CodeWriter writer) {
+    String simpleName = simpleName(model, PROXY_SUFFIX);
+    String codec = simpleName(model, CODEC_SUFFIX);
+    writer.println("/**");
+    writer.print(" * Proxy of {@link ");
+    writer.print(model.getType().getSimpleName());
+    writer.print("} sending the calls through the {@link ");
+    writer.print(codec);
+    writer.println("}, or as JSON envelopes to a");
+    writer.println(" * JSON proxy handler.");
+    writer.println(" */");
+    writer.print("public class ");
+    writer.print(simpleName);
+    writer.print(" implements ");
+    writer.print(model.getType().getName());
+    writer.println(" {");
+    writer.println();
+    writer.println("  private final io.vertx.core.Vertx vertx;");
+    writer.println("  private final String address;");
+    writer.println("  private final boolean binary;");
+    for (int i = 0; i < methods.size(); i++) {
+      writer.print("  private final io.vertx.core.eventbus.DeliveryOptions __options_");
+      writer.print(i);
+      writer.println(";");
+    }
+    writer.println("  private boolean closed;");
+    writer.println();
+    writer.print("  public ");
+    writer.print(simpleName);
+    writer.println("(io.vertx.core.Vertx vertx, String address) {");
+    writer.println("    this(vertx, address, new io.vertx.core.eventbus.DeliveryOptions(), true);");
+    writer.println("  }");
+    writer.println();
+    writer.println("  /**");
+    writer.println("   * @param binary {@code false} to send JSON envelopes to a JSON proxy handler");
+    writer.println("   */");
+    writer.print("  public ");
+    writer.print(simpleName);
+    writer.println("(io.vertx.core.Vertx vertx, String address, io.vertx.core.eventbus.DeliveryOptions options, boolean binary) {");
+    writer.println("    this.vertx = vertx;");
+    writer.println("    this.address = address;");
+    writer.println("    this.binary = binary;");
+    writer.println("    if (binary) {");
+    writer.print("      ");
+    writer.print(codec);
+    writer.println(".register(vertx.eventBus());");
+    writer.println("    }");
+    for (int i = 0; i < methods.size(); i++) {
+      writer.print("    __options_");
+      writer.print(i);
+      writer.print(" = options(options, \"");
+      writer.print(methods.get(i).getName());
+      writer.println("\");");
+    }
+    writer.println("  }");
+    writer.println();
+    writer.println("  private io.vertx.core.eventbus.DeliveryOptions options(io.vertx.core.eventbus.DeliveryOptions options, String action) {");
+    writer.println("    io.vertx.core.eventbus.DeliveryOptions copy = new io.vertx.core.eventbus.DeliveryOptions()");
+    writer.println("      .setSendTimeout(options.getSendTimeout())");
+    writer.println("      .setLocalOnly(options.isLocalOnly())");
+    writer.println("      .setCodecName(options.getCodecName());");
+    writer.println("    if (options.getHeaders() != null) {");
+    writer.println("      copy.setHeaders(io.vertx.core.MultiMap.caseInsensitiveMultiMap().addAll(options.getHeaders()));");
+    writer.println("    }");
+    writer.println("    copy.addHeader(\"action\", action);");
+    writer.println("    if (binary) {");
+    writer.print("      copy.addHeader(");
+    writer.print(BinaryFormat.class.getName());
+    writer.print(".HEADER, \"true\").setCodecName(");
+    writer.print(codec);
+    writer.println(".NAME);");
+    writer.println("    }");
+    writer.println("    return copy;");
+    writer.println("  }");
+    for (int i = 0; i < methods.size(); i++) {
+      writer.println();
+      genProxyMethod(model, methods.get(i), i, writer);
+    }
+    writer.println("}");
+  }
+
+  private void genProxyMethod(ClassModel model, MethodInfo method, int code, CodeWriter writer) {
+    boolean fluent = method.isFluent();
+    TypeInfo result = resultType(method);
+    List<ParamInfo> params = params(method);
+    String handler = result != null ? method.getParams().get(method.getParams().size() - 1).getName() : null;
+    writer.println("  @Override");
+    writer.print("  public ");
+    writer.print(fluent ? model.getType().getName() : "void");
+    writer.print(" ");
+    writer.print(method.getName());
+    writer.print("(");
+    writer.print(method.getParams().stream().map(param -> param.getType().getName() + " " + param.getName()).collect(Collectors.joining(", ")));
+    writer.println(") {");
+    writer.println("    if (closed) {");
+    if (handler != null) {
+      writer.print("      ");
+      writer.print(handler);
+      writer.println(".handle(io.vertx.core.Future.failedFuture(new IllegalStateException(\"Proxy is closed\")));");
+      writer.println(fluent ? "      return this;" : "      return;");
+    } else {
+      writer.println("      throw new IllegalStateException(\"Proxy is closed\");");
+    }
+    writer.println("    }");
+    writer.println("    Object body;");
+    writer.println("    if (binary) {");
+    writer.print("      body = new Object[]{");
+    writer.print(code);
+    for (ParamInfo param : params) {
+      writer.print(", ");
+      writer.print(param.getName());
+    }
+    writer.println("};");
+    writer.println("    } else {");
+    writer.println("      io.vertx.core.json.JsonObject json = new io.vertx.core.json.JsonObject();");
+    for (ParamInfo param : params) {
+      writer.print("      json.put(\"");
+      writer.print(param.getName());
+      writer.print("\", ");
+      writer.print(toJson(param.getType(), param.getName()));
+      writer.println(");");
+    }
+    writer.println("      body = json;");
+    writer.println("    }");
+    if (handler != null) {
+      writer.print("    vertx.eventBus().<Object>send(address, body, __options_");
+      writer.print(code);
+      writer.println(", res -> {");
+      writer.println("      if (res.failed()) {");
+      writer.print("        ");
+      writer.print(handler);
+      writer.println(".handle(io.vertx.core.Future.failedFuture(res.cause()));");
+      writer.println("      } else {");
+      writer.println("        Object reply = res.result().body();");
+      writer.print("        ");
+      writer.print(handler);
+      writer.print(".handle(io.vertx.core.Future.succeededFuture(");
+      if (result.getKind() == VOID) {
+        writer.print(")");
+      } else {
+        writer.print("binary ? (");
+        writer.print(result.getName());
+        writer.print(") ((Object[]) reply)[1] : ");
+        writer.print(fromJson(result, "reply"));
+        writer.print(")");
+      }
+      writer.println(");");
+      writer.println("      }");
+      writer.println("    });");
+    } else {
+      writer.print("    vertx.eventBus().send(address, body, __options_");
+      writer.print(code);
+      writer.println(");");
+    }
+    if (isAnnotated(model, method, ProxyClose.class)) {
+      writer.println("    closed = true;");
+    }
+    if (fluent) {
+      writer.println("    return this;");
+    }
+    writer.println("  }");
+  }
+
+  /**
+   * @return {@code expr} as the JSON proxies put it in the envelope
+   */
+  private String toJson(TypeInfo type, String expr) {
+    ClassKind kind = type.getKind();
+    if (kind == DATA_OBJECT) {
+      return expr + " != null ? " + expr + ".toJson() : null";
+    } else if (kind == ENUM) {
+      return expr + " != null ? " + expr + ".name() : null";
+    } else if ("Char".equals(BASIC_TYPES.get(type.getName()))) {
+      return kind == PRIMITIVE ? "(int) " + expr : expr + " != null ? (Integer) (int) " + expr + ".charValue() : null";
+    }
+    return expr;
+  }
+
+  /**
+   * @return the {@code type} value of {@code expr}, a value of a JSON envelope or of a JSON reply
+   */
+  private String fromJson(TypeInfo type, String expr) {
+    ClassKind kind = type.getKind();
+    String name = type.getName();
+    if (kind == DATA_OBJECT) {
+      return expr + " != null ? new " + name + "((io.vertx.core.json.JsonObject) " + expr + ") : null";
+    } else if (kind == ENUM) {
+      return expr + " != null ? " + name + ".valueOf((String) " + expr + ") : null";
+    }
+    String basic = BASIC_TYPES.get(name);
+    if (basic == null || basic.equals("Boolean")) {
+      return "(" + (kind == PRIMITIVE ? boxed(basic) : name) + ") " + expr;
+    } else if (basic.equals("Char")) {
+      return expr + " != null ? (Character) (char) ((Number) " + expr + ").intValue() : null";
+    }
+    String primitive = basic.equals("Int") ? "int" : basic.toLowerCase();
+    return expr + " != null ? (" + boxed(basic) + ") ((Number) " + expr + ")." + primitive + "Value() : null";
+  }
+
+  private String boxed(String basic) {
+    switch (basic) {
+      case "Int":
+        return "Integer";
+      case "Char":
+        return "Character";
+      default:
+        return basic;
+    }
+  }
+
+  private void genHandler(ClassModel model, List<MethodInfo> methods, CodeWriter writer) {
+    String simpleName = simpleName(model, HANDLER_SUFFIX);
+    String codec = simpleName(model, CODEC_SUFFIX);
+    String service = model.getType().getName();
+    writer.println("/**");
+    writer.print(" * Calls a {@link ");
+    writer.print(model.getType().getSimpleName());
+    writer.print("} with the binary messages of the {@link ");
+    writer.print(simpleName(model, PROXY_SUFFIX));
+    writer.println("} and with the JSON");
+    writer.println(" * envelopes of the JSON proxies.");
+    writer.println(" */");
+    writer.print("public class ");
+    writer.print(simpleName);
+    writer.println(" implements io.vertx.core.Handler<io.vertx.core.eventbus.Message<Object>> {");
+    writer.println();
+    writer.print("  private static final io.vertx.core.eventbus.DeliveryOptions REPLY = new io.vertx.core.eventbus.DeliveryOptions().setCodecName(");
+    writer.print(codec);
+    writer.println(".NAME);");
+    writer.println();
+    writer.println("  private final io.vertx.core.Vertx vertx;");
+    writer.print("  private final ");
+    writer.print(service);
+    writer.println(" service;");
+    writer.println();
+    writer.print("  public ");
+    writer.print(simpleName);
+    writer.print("(io.vertx.core.Vertx vertx, ");
+    writer.print(service);
+    writer.println(" service) {");
+    writer.println("    this.vertx = vertx;");
+    writer.println("    this.service = service;");
+    writer.print("    ");
+    writer.print(codec);
+    writer.println(".register(vertx.eventBus());");
+    writer.println("  }");
+    writer.println();
+    writer.println("  public io.vertx.core.eventbus.MessageConsumer<Object> register(String address) {");
+    writer.println("    return vertx.eventBus().consumer(address, this);");
+    writer.println("  }");
+    writer.println();
+    writer.println("  @Override");
+    writer.println("  public void handle(io.vertx.core.eventbus.Message<Object> msg) {");
+    writer.println("    try {");
+    writer.print("      if (msg.headers().contains(");
+    writer.print(BinaryFormat.class.getName());
+    writer.println(".HEADER)) {");
+    writer.println("        Object[] body = (Object[]) msg.body();");
+    writer.println("        switch ((Integer) body[0]) {");
+    for (int i = 0; i < methods.size(); i++) {
+      MethodInfo method = methods.get(i);
+      writer.print("          case ");
+      writer.print(i);
+      writer.println(":");
+      writer.print("            service.");
+      writer.print(method.getName());
+      writer.print("(");
+      List<String> args = params(method).stream().map(param -> "(" + param.getType().getName() + ") body[" + (param.getIndex() + 1) + "]").collect(Collectors.toList());
+      if (resultType(method) != null) {
+        args.add("binaryReply(msg, " + i + ")");
+      }
+      writer.print(String.join(", ", args));
+      writer.println(");");
+      writer.println("            break;");
+    }
+    writer.println("          default:");
+    writer.println("            throw new IllegalStateException(\"Invalid code: \" + body[0]);");
+    writer.println("        }");
+    writer.println("      } else {");
+    writer.println("        io.vertx.core.json.JsonObject json = (io.vertx.core.json.JsonObject) msg.body();");
+    writer.println("        String action = msg.headers().get(\"action\");");
+    writer.println("        if (action == null) {");
+    writer.println("          throw new IllegalStateException(\"action not specified\");");
+    writer.println("        }");
+    writer.println("        switch (action) {");
+    for (MethodInfo method : methods) {
+      writer.print("          case \"");
+      writer.print(method.getName());
+      writer.println("\":");
+      writer.print("            service.");
+      writer.print(method.getName());
+      writer.print("(");
+      List<String> args = params(method).stream().map(param -> fromJson(param.getType(), "json.getValue(\"" + param.getName() + "\")")).collect(Collectors.toList());
+      TypeInfo result = resultType(method);
+      if (result != null) {
+        args.add("jsonReply(msg, " + jsonReply(result) + ")");
+      }
+      writer.print(String.join(", ", args));
+      writer.println(");");
+      writer.println("            break;");
+    }
+    writer.println("          default:");
+    writer.println("            throw new IllegalStateException(\"Invalid action: \" + action);");
+    writer.println("        }");
+    writer.println("      }");
+    writer.println("    } catch (Throwable t) {");
+    writer.println("      msg.fail(-1, t.getMessage());");
+    writer.println("    }");
+    writer.println("  }");
+    writer.println();
+    writer.println("  private static <T> io.vertx.core.Handler<io.vertx.core.AsyncResult<T>> binaryReply(io.vertx.core.eventbus.Message<Object> msg, int code) {");
+    writer.println("    return ar -> {");
+    writer.println("      if (ar.succeeded()) {");
+    writer.print("        msg.reply(new Object[]{");
+    writer.print(codec);
+    writer.println(".REPLY | code, ar.result()}, REPLY);");
+    writer.println("      } else {");
+    writer.println("        msg.fail(-1, ar.cause().getMessage());");
+    writer.println("      }");
+    writer.println("    };");
+    writer.println("  }");
+    writer.println();
+    writer.println("  private static <T> io.vertx.core.Handler<io.vertx.core.AsyncResult<T>> jsonReply(io.vertx.core.eventbus.Message<Object> msg, java.util.function.Function<T, Object> toJson) {");
+    writer.println("    return ar -> {");
+    writer.println("      if (ar.succeeded()) {");
+    writer.println("        T result = ar.result();");
+    writer.println("        msg.reply(result != null && toJson != null ? toJson.apply(result) : result);");
+    writer.println("      } else {");
+    writer.println("        msg.fail(-1, ar.cause().getMessage());");
+    writer.println("      }");
+    writer.println("    };");
+    writer.println("  }");
+    writer.println("}");
+  }
+
+  /**
+   * @return the function converting a result to its JSON reply, {@code null} when replied as is
+   */
+  private String jsonReply(TypeInfo type) {
+    ClassKind kind = type.getKind();
+    String name = type.getName();
+    if (kind == DATA_OBJECT) {
+      return "(" + name + " r) -> r.toJson()";
+    } else if (kind == ENUM) {
+      return "(" + name + " r) -> r.name()";
+    } else if ("Char".equals(BASIC_TYPES.get(name))) {
+      return "(Character r) -> (int) r";
+    }
+    return "(java.util.function.Function<" + name + ", Object>) null";
+  }
+
+  private void genCodec(ClassModel model, List<MethodInfo> methods, CodeWriter writer) {
+    String simpleName = simpleName(model, CODEC_SUFFIX);
+    String reader = BinaryFormat.Reader.class.getName().replace('$', '.');
+    writer.println("/**");
+    writer.print(" * Codec of the calls of {@link ");
+    writer.print(simpleName(model, PROXY_SUFFIX));
+    writer.println("}: {@code Object[]} bodies of a code and of the arguments, or");
+    writer.println(" * of {@code REPLY} with the code and of the result, written in the binary format on the wire and handed over as is");
+    writer.println(" * to the local consumers.");
+    writer.println(" */");
+    writer.print("public class ");
+    writer.print(simpleName);
+    writer.println(" implements io.vertx.core.eventbus.MessageCodec<Object[], Object[]> {");
+    writer.println();
+    writer.print("  public static final String NAME = \"");
+    writer.print(model.getType().getName());
+    writer.print(CODEC_SUFFIX);
+    writer.print("-");
+    writer.print(Integer.toHexString(methods.stream().map(this::signature).collect(Collectors.joining(";")).hashCode()));
+    writer.println("\";");
+    writer.println("  public static final int REPLY = 0x80;");
+    writer.println();
+    writer.println("  /**");
+    writer.println("   * Registers the codec unless registered already.");
+    writer.println("   */");
+    writer.println("  public static void register(io.vertx.core.eventbus.EventBus eventBus) {");
+    writer.println("    try {");
+    writer.print("      eventBus.registerCodec(new ");
+    writer.print(simpleName);
+    writer.println("());");
+    writer.println("    } catch (IllegalStateException ignore) {");
+    writer.println("    }");
+    writer.println("  }");
+    writer.println();
+    writer.println("  @Override");
+    writer.println("  public void encodeToWire(io.vertx.core.buffer.Buffer buffer, Object[] body) {");
+    writer.println("    int start = buffer.length();");
+    writer.println("    int code = (Integer) body[0];");
+    writer.println("    buffer.appendInt(0).appendByte((byte) code);");
+    writer.println("    switch (code) {");
+    for (int i = 0; i < methods.size(); i++) {
+      MethodInfo method = methods.get(i);
+      writer.print("      case ");
+      writer.print(i);
+      writer.println(":");
+      for (ParamInfo param : params(method)) {
+        genWrite(param.getType(), "body[" + (param.getIndex() + 1) + "]", writer);
+      }
+      writer.println("        break;");
+      TypeInfo result = resultType(method);
+      if (result != null) {
+        writer.print("      case REPLY | ");
+        writer.print(i);
+        writer.println(":");
+        if (result.getKind() != VOID) {
+          genWrite(result, "body[1]", writer);
+        }
+        writer.println("        break;");
+      }
+    }
+    writer.println("      default:");
+    writer.println("        throw new IllegalStateException(\"Invalid code: \" + code);");
+    writer.println("    }");
+    writer.println("    buffer.setInt(start, buffer.length() - start - 4);");
+    writer.println("  }");
+    writer.println();
+    writer.println("  @Override");
+    writer.println("  public Object[] decodeFromWire(int pos, io.vertx.core.buffer.Buffer buffer) {");
+    writer.println("    int code = buffer.getByte(pos + 4) & 0xFF;");
+    writer.print("    ");
+    writer.print(reader);
+    writer.print(" reader = new ");
+    writer.print(reader);
+    writer.println("(buffer, pos + 5);");
+    writer.println("    switch (code) {");
+    for (int i = 0; i < methods.size(); i++) {
+      MethodInfo method = methods.get(i);
+      writer.print("      case ");
+      writer.print(i);
+      writer.println(":");
+      writer.print("        return new Object[]{code");
+      for (ParamInfo param : params(method)) {
+        writer.print(", ");
+        writer.print(read(param.getType()));
+      }
+      writer.println("};");
+      TypeInfo result = resultType(method);
+      if (result != null) {
+        writer.print("      case REPLY | ");
+        writer.print(i);
+        writer.println(":");
+        writer.print("        return new Object[]{code, ");
+        writer.print(result.getKind() == VOID ? "null" : read(result));
+        writer.println("};");
+      }
+    }
+    writer.println("      default:");
+    writer.println("        throw new IllegalStateException(\"Invalid code: \" + code);");
+    writer.println("    }");
+    writer.println("  }");
+    writer.println();
+    writer.println("  @Override");
+    writer.println("  public Object[] transform(Object[] body) {");
+    writer.println("    return body;");
+    writer.println("  }");
+    writer.println();
+    writer.println("  @Override");
+    writer.println("  public String name() {");
+    writer.println("    return NAME;");
+    writer.println("  }");
+    writer.println();
+    writer.println("  @Override");
+    writer.println("  public byte systemCodecID() {");
+    writer.println("    return -1;");
+    writer.println("  }");
+    writer.println("}");
+  }
+
+  private void genWrite(TypeInfo type, String expr, CodeWriter writer) {
+    String format = BinaryFormat.class.getName();
+    ClassKind kind = type.getKind();
+    String name = type.getName();
+    String value = "((" + name + ") " + expr + ")";
+    writer.print("        ");
+    if (kind == DATA_OBJECT) {
+      writer.print(format + ".writeJsonObject(buffer, " + expr + " != null ? " + value + ".toJson() : null);");
+    } else if (kind == ENUM) {
+      writer.print(format + ".writeEnum(buffer, " + value + ");");
+    } else if (kind == JSON_OBJECT) {
+      writer.print(format + ".writeJsonObject(buffer, " + value + ");");
+    } else if (kind == JSON_ARRAY) {
+      writer.print(format + ".writeJsonArray(buffer, " + value + ");");
+    } else if (kind == STRING) {
+      writer.print(format + ".writeString(buffer, " + value + ");");
+    } else if (kind == PRIMITIVE) {
+      writer.print(writePrimitive(BASIC_TYPES.get(name), "(" + boxed(BASIC_TYPES.get(name)) + ") " + expr) + ";");
+    } else {
+      writer.print("if (" + format + ".present(buffer, " + expr + ")) {\n          " + writePrimitive(BASIC_TYPES.get(name), value) + ";\n        }");
+    }
+    writer.println();
+  }
+
+  private String writePrimitive(String basic, String value) {
+    switch (basic) {
+      case "Boolean":
+        return "buffer.appendByte((byte) (" + value + " ? 1 : 0))";
+      case "Char":
+        return "buffer.appendShort((short) (char) " + value + ")";
+      default:
+        return "buffer.append" + basic + "(" + value + ")";
+    }
+  }
+
+  private String read(TypeInfo type) {
+    ClassKind kind = type.getKind();
+    String name = type.getName();
+    if (kind == DATA_OBJECT) {
+      return "reader.getDataObject(" + name + "::new)";
+    } else if (kind == ENUM) {
+      return "reader.getEnum(" + name + ".class)";
+    } else if (kind == JSON_OBJECT) {
+      return "reader.getJsonObject()";
+    } else if (kind == JSON_ARRAY) {
+      return "reader.getJsonArray()";
+    } else if (kind == STRING) {
+      return "reader.getString()";
+    }
+    String basic = BASIC_TYPES.get(name);
+    if (kind == PRIMITIVE) {
+      return "reader.get" + basic + "()";
+    }
+    return "(reader.present() ? (" + name + ") reader.get" + basic + "() : null)";
+  }
+}
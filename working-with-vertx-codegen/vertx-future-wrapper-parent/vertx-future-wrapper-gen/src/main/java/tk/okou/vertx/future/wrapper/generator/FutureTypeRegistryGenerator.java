@@ -0,0 +1,129 @@
+package tk.okou.vertx.future.wrapper.generator;
+
+import io.vertx.codegen.ClassModel;
+import io.vertx.codegen.Generator;
+import io.vertx.codegen.ModuleInfo;
+import io.vertx.codegen.annotations.ModuleGen;
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.codegen.type.ClassTypeInfo;
+import io.vertx.codegen.writer.CodeWriter;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import tk.okou.vertx.future.wrapper.TypeRegistry;
+
+import java.io.StringWriter;
+import java.lang.annotation.Annotation;
+import java.util.*;
+
+/**
+ * Generates the {@link TypeRegistry} of each module, and the {@code META-INF/services} file listing them.
+ */
+class FutureTypeRegistryGenerator extends Generator<ClassModel> {
+  static final String SIMPLE_NAME = "FutureTypeRegistry";
+
+  private final boolean services;
+
+  FutureTypeRegistryGenerator(boolean services) {
+    this.services = services;
+    this.name = "FutureWrapper";
+    this.kinds = Collections.singleton("class");
+    this.incremental = true;
+  }
+
+  @Override
+  public Collection<Class<? extends Annotation>> annotations() {
+    return Arrays.asList(VertxGen.class, ModuleGen.class);
+  }
+
+  private boolean isFuture(ClassTypeInfo typeInfo) {
+    String name = typeInfo.getRaw().getName();
+    return name.equals(Future.class.getName()) || name.equals(CompositeFuture.class.getName());
+  }
+
+  private String registryName(ModuleInfo module) {
+    return module.translatePackageName("future") + "." + SIMPLE_NAME;
+  }
+
+  @Override
+  public String filename(ClassModel model) {
+    ClassTypeInfo type = model.getType();
+    if (isFuture(type) || type.getModule() == null) {
+      return null;
+    }
+    if (services) {
+      return "resources/META-INF/services/" + TypeRegistry.class.getName();
+    }
+    return registryName(type.getModule()) + ".java";
+  }
+
+  @Override
+  public String render(ClassModel model, int index, int size, Map<String, Object> session) {
+    @SuppressWarnings("unchecked")
+    List<ClassModel> models = (List<ClassModel>) session.computeIfAbsent("models", k -> new ArrayList<>());
+    models.add(model);
+    if (index < size - 1) {
+      return "";
+    }
+    StringWriter sb = new StringWriter();
+    CodeWriter writer = new CodeWriter(sb);
+    if (services) {
+      models.stream().map(it -> registryName(it.getType().getModule())).distinct().sorted().forEach(writer::println);
+    } else {
+      renderRegistry(models, writer);
+    }
+    writer.flush();
+    return sb.toString();
+  }
+
+  private void renderRegistry(List<ClassModel> models, CodeWriter writer) {
+    ModuleInfo module = models.get(0).getType().getModule();
+    models.sort(Comparator.comparing(it -> it.getType().getName()));
+
+    writer.print("package ");
+    writer.print(module.translatePackageName("future"));
+    writer.println(";");
+    writer.println();
+    writer.println("/**");
+    writer.print(" * Wrapper types of the {@code ");
+    writer.print(module.getName());
+    writer.println("} module.");
+    writer.println(" *");
+    writer.println(" * <p/>");
+    writer.println(" * NOTE: This class has been automatically generated using Vert.x codegen.");
+    writer.println(" */");
+    writer.print("public final class ");
+    writer.print(SIMPLE_NAME);
+    writer.print(" extends ");
+    writer.print(TypeRegistry.class.getName());
+    writer.println(" {");
+    writer.println();
+
+    List<ClassModel> typeArgs = new ArrayList<>();
+    writer.println("  @Override");
+    writer.println("  protected void register() {");
+    for (ClassModel model : models) {
+      ClassTypeInfo type = model.getType();
+      int index = -1;
+      if (model.isConcrete()) {
+        index = typeArgs.size();
+        typeArgs.add(model);
+      }
+      writer.format("    add(%s.class, %s.class, %d);", type.translateName("future"), type.getName(), index).println();
+    }
+    writer.println("  }");
+    writer.println();
+
+    writer.println("  @Override");
+    writer.println("  protected tk.okou.vertx.future.wrapper.TypeArg<?> typeArg(int index) {");
+    writer.println("    switch (index) {");
+    for (int i = 0; i < typeArgs.size(); i++) {
+      writer.format("      case %d:", i).println();
+      writer.format("        return %s.__TYPE_ARG;", typeArgs.get(i).getType().translateName("future")).println();
+    }
+    writer.println("      default:");
+    writer.println("        return null;");
+    writer.println("    }");
+    writer.println("  }");
+    writer.println("}");
+  }
+}
@@ -10,21 +10,64 @@ import io.vertx.codegen.type.*;
 import io.vertx.codegen.writer.CodeWriter;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
+import tk.okou.vertx.future.wrapper.AsyncResultAdapter;
+import tk.okou.vertx.future.wrapper.Coalesce;
 import tk.okou.vertx.future.wrapper.FutureGen;
+import tk.okou.vertx.future.wrapper.HandlerAdapter;
 
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Element;
+import javax.tools.JavaFileObject;
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.annotation.Annotation;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static io.vertx.codegen.type.ClassKind.*;
 
 class FutureWrapperGenerator extends Generator<ClassModel> {
-  FutureWrapperGenerator() {
+  /**
+   * The commands left out of the batches: closing the client or changing the mode of its connection halfway through
+   * the batch, blocking the connection, or holding back the replies the batch waits for.
+   */
+  private static final Set<String> BATCH_EXCLUDES = new HashSet<>(Arrays.asList(
+    "close", "subscribe", "subscribeMany", "psubscribe", "psubscribeMany", "unsubscribe", "punsubscribe", "monitor",
+    "sync", "blpop", "blpopMany", "brpop", "brpopMany", "brpoplpush", "wait", "clientPause", "clientReply",
+    "debugSegfault"));
+
+  private final FutureWrapperOptions options;
+  private final Filer filer;
+  private final ModelFingerprints fingerprints;
+  private final ExecutorService renderPool;
+  private final Map<String, CompletableFuture<String>> renders = new ConcurrentHashMap<>();
+  /**
+   * The links of the models rendered by the pool, resolved on the processor thread since the javac elements are not
+   * thread safe. {@link Tag.Link} has no {@code equals}, the links are looked up by identity.
+   */
+  private final Map<Tag.Link, String> links = new ConcurrentHashMap<>();
+
+  FutureWrapperGenerator(FutureWrapperOptions options, ProcessingEnvironment processingEnv) {
+    this.options = options;
+    this.filer = options.filer ? processingEnv.getFiler() : null;
     this.name = "FutureWrapper";
     this.kinds = Collections.singleton("class");
+    if (options.incremental != null) {
+      fingerprints = new ModelFingerprints(Paths.get(options.incremental), processingEnv.getElementUtils(), options.fingerprint);
+    } else {
+      fingerprints = null;
+    }
+    renderPool = options.parallelism > 0 ? new ForkJoinPool(options.parallelism) : null;
   }
 
   @Override
@@ -32,7 +75,7 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
     return Arrays.asList(VertxGen.class, ModuleGen.class);
   }
 
-  private boolean isFuture(ClassTypeInfo typeInfo) {
+  boolean isFuture(ClassTypeInfo typeInfo) {
     String name = typeInfo.getRaw().getName();
     return name.equals(Future.class.getName()) || name.equals(CompositeFuture.class.getName());
   }
@@ -42,14 +85,70 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
     if (isFuture(model.getType())) {
       return null;
     }
+    // all the file names are known before the processor renders the first one: start rendering now
+    if (renderPool != null && (fingerprints == null || fingerprints.changed(model)) && !renders.containsKey(model.getFqn())) {
+      resolveLinks(model);
+      renders.computeIfAbsent(model.getFqn(), fqn -> CompletableFuture.supplyAsync(() -> renderModel(model), renderPool));
+    }
     return model.getType().translateName("future") + ".java";
   }
 
   @Override
   public String render(ClassModel model, int index, int size, Map<String, Object> session) {
+    if (fingerprints != null && !fingerprints.changed(model)) {
+      // the file of the previous build is up to date
+      return "";
+    }
+    CompletableFuture<String> rendered = renders.remove(model.getFqn());
+    String content;
+    if (rendered != null) {
+      try {
+        content = rendered.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    } else if (filer != null) {
+      writeModel(model);
+      content = "";
+    } else {
+      content = renderModel(model);
+    }
+    if (fingerprints != null) {
+      fingerprints.store(model);
+    }
+    return content;
+  }
+
+  private String renderModel(ClassModel model) {
+    StringWriter buffer = new StringWriter();
+    renderModel(model, new CodeWriter(buffer));
+    return buffer.toString();
+  }
+
+  /**
+   * Streams the model to its source file, the processor does not write the empty content returned instead.
+   */
+  private void writeModel(ClassModel model) {
+    String fqn = model.getType().translateName("future");
+    CodeWriter writer;
+    try {
+      JavaFileObject file = filer.createSourceFile(fqn, model.getElement());
+      writer = new CodeWriter(new BufferedWriter(file.openWriter(), 16 * 1024));
+    } catch (IOException e) {
+      throw new GenException(model.getElement(), "Could not create " + fqn + ": " + e.getMessage());
+    }
+    renderModel(model, writer);
+    writer.close();
+    if (writer.checkError()) {
+      throw new GenException(model.getElement(), "Could not write " + fqn);
+    }
+  }
+
+  private void renderModel(ClassModel model, CodeWriter writer) {
     ClassTypeInfo type = model.getType();
-    StringWriter sb = new StringWriter();
-    CodeWriter writer = new CodeWriter(sb);
 
     generateLicense(writer);
 
@@ -81,7 +180,7 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
     }
     if (model.isConcrete() && model.getConcreteSuperType() != null) {
       writer.print(" extends ");
-      writer.print(genTypeName(model.getConcreteSuperType()));
+      genTypeName(model.getConcreteSuperType(), writer);
     }
     List<TypeInfo> abstractSuperTypes = model.getAbstractSuperTypes();
     if (abstractSuperTypes.size() > 0) {
@@ -91,7 +190,13 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
       } else {
         writer.print("extends");
       }
-      writer.print(abstractSuperTypes.stream().map(it -> " " + genTypeName(it)).collect(Collectors.joining(", ")));
+      for (int index = 0; index < abstractSuperTypes.size(); index++) {
+        if (index > 0) {
+          writer.print(", ");
+        }
+        writer.print(" ");
+        genTypeName(abstractSuperTypes.get(index), writer);
+      }
     }
     TypeInfo handlerType = model.getHandlerType();
     if (handlerType != null) {
@@ -106,12 +211,18 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
         writer.print(", ");
       }
       writer.print("io.vertx.core.Handler<");
-      writer.print(genTypeName(handlerType));
+      genTypeName(handlerType, writer);
       writer.print(">");
     }
     writer.println(" {");
     writer.println();
 
+    // declared first, constants of the class are wrapped by the static initializer
+    boolean intern = options.intern && type.getParams().isEmpty();
+    if (intern && model.isConcrete()) {
+      genWrappers(type, "private static final", writer);
+    }
+
     if (model.isConcrete()) {
       if ("io.vertx.core.buffer.Buffer".equals(type.getName())) {
         writer.println("  @Override");
@@ -124,6 +235,9 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
         writer.println("    return delegate.readFromBuffer(pos, buffer);");
         writer.println("  }");
         writer.println();
+        if (options.pooledBuffer) {
+          genPooledBuffer(writer);
+        }
       }
 
       List<MethodInfo> methods = model.getMethods();
@@ -176,13 +290,24 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
     writer.print(type.getName());
     writer.println(" arg) {");
 
-    writer.print("    return arg != null ? new ");
-    writer.print(type.getSimpleName());
-    if (!model.isConcrete()) {
-      writer.print("Impl");
+    if (intern) {
+      // the fields of an interface are public, the package private impl class holds the cache of an abstract type
+      String wrappers = model.isConcrete() ? "__WRAPPERS" : type.getSimpleName() + "Impl.__WRAPPERS";
+      writer.print("    return arg != null ? " + wrappers + ".get(arg, ");
+      writer.print(type.getSimpleName());
+      if (!model.isConcrete()) {
+        writer.print("Impl");
+      }
+      writer.println("::new) : null;");
+    } else {
+      writer.print("    return arg != null ? new ");
+      writer.print(type.getSimpleName());
+      if (!model.isConcrete()) {
+        writer.print("Impl");
+      }
+      writer.print(genOptTypeParamsDecl(type, ""));
+      writer.println("(arg) : null;");
     }
-    writer.print(genOptTypeParamsDecl(type, ""));
-    writer.println("(arg) : null;");
     writer.println("  }");
 
     if (type.getParams().size() > 0) {
@@ -227,10 +352,18 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
       writer.print(" implements ");
       writer.print(Helper.getSimpleName(model.getIfaceFQCN()));
       writer.println(" {");
+      if (intern) {
+        genWrappers(type, "static final", writer);
+      }
       generateClassBody(model, type.getSimpleName() + "Impl", writer);
       writer.println("}");
     }
-    return sb.toString();
+  }
+
+  private void genWrappers(ClassTypeInfo type, String modifiers, PrintWriter writer) {
+    writer.format("  %s tk.okou.vertx.future.wrapper.WrapperCache<%s, %s> __WRAPPERS = tk.okou.vertx.future.wrapper.WrapperCache.create(%d, tk.okou.vertx.future.wrapper.WrapperCache.Eviction.%s, %s::getDelegate);",
+      modifiers, type.getName(), type.getSimpleName(), options.internCapacity, options.internEviction, type.getSimpleName()).println();
+    writer.println();
   }
 
   private void generateClassBody(ClassModel model, String constructor, PrintWriter writer) {
@@ -240,9 +373,9 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
       writer.print("  public static final tk.okou.vertx.future.wrapper.TypeArg<");
       writer.print(simpleName);
       writer.print("> __TYPE_ARG = new tk.okou.vertx.future.wrapper.TypeArg<>(");
-      writer.print("    obj -> new ");
+      writer.print("    obj -> ");
       writer.print(simpleName);
-      writer.print("((");
+      writer.print(".newInstance((");
       writer.print(type.getName());
       writer.println(") obj),");
       writer.print("    ");
@@ -250,6 +383,9 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
       writer.println("::getDelegate");
       writer.println("  );");
       writer.println();
+      if (options.specialize && model.getTypeParams().isEmpty()) {
+        genSpecializedAdapters(type, writer);
+      }
     }
     writer.print("  private final ");
     writer.print(Helper.getNonGenericType(model.getIfaceFQCN()));
@@ -323,46 +459,382 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
 
     List<String> cacheDecls = new ArrayList<>();
     for (MethodInfo method : model.getMethods()) {
-      genMethods(model, method, cacheDecls, writer);
+      genMethods(model, constructor, method, cacheDecls, writer);
     }
     for (MethodInfo method : model.getAnyJavaTypeMethods()) {
-      genMethods(model, method, cacheDecls, writer);
+      genMethods(model, constructor, method, cacheDecls, writer);
     }
 
     for (ConstantInfo constant : model.getConstants()) {
       genConstant(model, constant, writer);
     }
 
+    if (model.isConcrete() && typeParams.isEmpty() && options.batch.contains(type.getName())) {
+      genBatch(model, constructor, writer);
+    }
+
+    if (options.pull && isPullStream(model)) {
+      genPull(model, writer);
+    }
+
     for (String cacheDecl : cacheDecls) {
-      writer.print("  ");
       writer.print(cacheDecl);
-      writer.println(";");
     }
   }
 
 
+  /**
+   * Generates the {@code __wrappingResult} and {@code __wrappingEvent} adapters of a concrete type: each type has
+   * its own {@code handle} methods, the {@code newInstance} calls stay monomorphic.
+   */
+  private void genSpecializedAdapters(ClassTypeInfo type, PrintWriter writer) {
+    String simpleName = type.getSimpleName();
+    String delegate = type.getName();
+    writer.println("  /**");
+    writer.println("   * @return a handler of delegate results calling {@code handler} with the results wrapped by {@link #newInstance}");
+    writer.println("   */");
+    writer.print("  public static io.vertx.core.Handler<io.vertx.core.AsyncResult<");
+    writer.print(delegate);
+    writer.print(">> __wrappingResult(io.vertx.core.Handler<io.vertx.core.AsyncResult<");
+    writer.print(simpleName);
+    writer.println(">> handler) {");
+    writer.println("    return handler != null ? new __ResultAdapter(handler) : null;");
+    writer.println("  }");
+    writer.println();
+    writer.println("  /**");
+    writer.println("   * @return a handler of delegate events calling {@code handler} with the events wrapped by {@link #newInstance}");
+    writer.println("   */");
+    writer.print("  public static io.vertx.core.Handler<");
+    writer.print(delegate);
+    writer.print("> __wrappingEvent(io.vertx.core.Handler<");
+    writer.print(simpleName);
+    writer.println("> handler) {");
+    writer.println("    return handler != null ? new __EventAdapter(handler) : null;");
+    writer.println("  }");
+    writer.println();
+    writer.print("  private static final class __ResultAdapter extends tk.okou.vertx.future.wrapper.AdaptedResult<");
+    writer.print(simpleName);
+    writer.print("> implements io.vertx.core.Handler<io.vertx.core.AsyncResult<");
+    writer.print(delegate);
+    writer.println(">> {");
+    writer.print("    private __ResultAdapter(io.vertx.core.Handler<io.vertx.core.AsyncResult<");
+    writer.print(simpleName);
+    writer.println(">> handler) {");
+    writer.println("      super(handler);");
+    writer.println("    }");
+    writer.println();
+    writer.println("    @Override");
+    writer.print("    public void handle(io.vertx.core.AsyncResult<");
+    writer.print(delegate);
+    writer.println("> ar) {");
+    writer.println("      if (ar.succeeded()) {");
+    writer.print("        succeed(");
+    writer.print(simpleName);
+    writer.println(".newInstance(ar.result()));");
+    writer.println("      } else {");
+    writer.println("        fail(ar.cause());");
+    writer.println("      }");
+    writer.println("    }");
+    writer.println("  }");
+    writer.println();
+    writer.print("  private static final class __EventAdapter implements io.vertx.core.Handler<");
+    writer.print(delegate);
+    writer.println("> {");
+    writer.print("    private final io.vertx.core.Handler<");
+    writer.print(simpleName);
+    writer.println("> handler;");
+    writer.println();
+    writer.print("    private __EventAdapter(io.vertx.core.Handler<");
+    writer.print(simpleName);
+    writer.println("> handler) {");
+    writer.println("      this.handler = handler;");
+    writer.println("    }");
+    writer.println();
+    writer.println("    @Override");
+    writer.print("    public void handle(");
+    writer.print(delegate);
+    writer.println(" event) {");
+    writer.print("      handler.handle(");
+    writer.print(simpleName);
+    writer.println(".newInstance(event));");
+    writer.println("    }");
+    writer.println("  }");
+    writer.println();
+  }
+
+  private static final String[][] BULK_TYPES = {
+    {"Short", "short", "2"}, {"Int", "int", "4"}, {"Long", "long", "8"}, {"Float", "float", "4"}, {"Double", "double", "8"}
+  };
+
+  private void genPooledBuffer(PrintWriter writer) {
+    writer.println("  private io.netty.buffer.ByteBuf __pooled;");
+    writer.println("  private boolean __released;");
+    writer.println();
+    writer.println("  /**");
+    writer.println("   * @return a buffer backed by a pooled direct {@code ByteBuf}, to be given back to the pool with {@link #release()}");
+    writer.println("   */");
+    writer.println("  public static Buffer directBuffer(int initialSizeHint) {");
+    writer.println("    io.netty.buffer.ByteBuf pooled = io.netty.buffer.PooledByteBufAllocator.DEFAULT.directBuffer(initialSizeHint);");
+    writer.println("    Buffer buffer = new Buffer(io.vertx.core.buffer.Buffer.buffer(pooled));");
+    writer.println("    buffer.__pooled = pooled;");
+    writer.println("    return buffer;");
+    writer.println("  }");
+    writer.println();
+    writer.println("  /**");
+    writer.println("   * Keeps a buffer of {@link #directBuffer(int)} out of the pool until {@code write} completes:");
+    writer.println("   * {@code buffer.retainUntil(socket.asyncWrite(buffer))}. A write reads the memory of the buffer when it is flushed, so");
+    writer.println("   * each write of a pooled buffer must be retained before the buffer is released. {@code write(Buffer)} without a");
+    writer.println("   * completion handler does not tell when it is flushed, do not use it with a pooled buffer.");
+    writer.println("   *");
+    writer.println("   * @return a future completed with the result of {@code write} once the buffer is no longer retained by it");
+    writer.println("   * @throws IllegalStateException if the buffer is released already");
+    writer.println("   */");
+    writer.println("  public synchronized <T> io.vertx.core.Future<T> retainUntil(io.vertx.core.Future<T> write) {");
+    writer.println("    io.netty.buffer.ByteBuf pooled = __pooled;");
+    writer.println("    if (pooled == null) {");
+    writer.println("      return write;");
+    writer.println("    }");
+    writer.println("    if (__released) {");
+    writer.println("      throw new IllegalStateException(\"released buffer\");");
+    writer.println("    }");
+    writer.println("    pooled.retain();");
+    writer.println("    io.vertx.core.Future<T> written = io.vertx.core.Future.future();");
+    writer.println("    write.setHandler(ar -> {");
+    writer.println("      pooled.release();");
+    writer.println("      written.handle(ar);");
+    writer.println("    });");
+    writer.println("    return written;");
+    writer.println("  }");
+    writer.println();
+    writer.println("  /**");
+    writer.println("   * Gives a buffer of {@link #directBuffer(int)} back to the pool once the writes retaining it complete, the buffer and");
+    writer.println("   * its slices must not be used afterwards.");
+    writer.println("   *");
+    writer.println("   * @return whether the buffer was given back now, {@code false} while writes retain it, for a buffer not from the pool");
+    writer.println("   * or already released");
+    writer.println("   */");
+    writer.println("  public synchronized boolean release() {");
+    writer.println("    if (__pooled == null || __released) {");
+    writer.println("      return false;");
+    writer.println("    }");
+    writer.println("    __released = true;");
+    writer.println("    return __pooled.release();");
+    writer.println("  }");
+    writer.println();
+    writer.println("  /**");
+    writer.println("   * @return a buffer of the content of {@code buffers} without copying it, changes to one show in the other");
+    writer.println("   */");
+    writer.println("  public static Buffer composite(Buffer... buffers) {");
+    writer.println("    io.netty.buffer.ByteBuf[] byteBufs = new io.netty.buffer.ByteBuf[buffers.length];");
+    writer.println("    for (int i = 0; i < buffers.length; i++) {");
+    writer.println("      byteBufs[i] = buffers[i].delegate.getByteBuf();");
+    writer.println("    }");
+    writer.println("    return new Buffer(io.vertx.core.buffer.Buffer.buffer(io.netty.buffer.Unpooled.wrappedBuffer(byteBufs)));");
+    writer.println("  }");
+    writer.println();
+    for (String[] bulkType : BULK_TYPES) {
+      String name = bulkType[0];
+      String type = bulkType[1];
+      String size = bulkType[2];
+      writer.println("  /**");
+      writer.format("   * Reads {@code length} %ss from {@code pos} into {@code dst} from {@code offset}.", type).println();
+      writer.println("   */");
+      writer.format("  public Buffer get%ss(int pos, %s[] dst, int offset, int length) {", name, type).println();
+      writer.format("    if (pos < 0 || pos + length * %s > delegate.length()) {", size).println();
+      writer.format("      throw new IndexOutOfBoundsException(\"pos: \" + pos + \", length: \" + length + \" %ss, buffer length: \" + delegate.length());", type).println();
+      writer.println("    }");
+      writer.println("    io.netty.buffer.ByteBuf buf = delegate.getByteBuf();");
+      writer.println("    for (int i = 0; i < length; i++) {");
+      writer.format("      dst[offset + i] = buf.get%s(pos + i * %s);", name, size).println();
+      writer.println("    }");
+      writer.println("    return this;");
+      writer.println("  }");
+      writer.println();
+      writer.println("  /**");
+      writer.format("   * Writes {@code length} %ss of {@code src} from {@code offset} at {@code pos}, the buffer expands as needed.", type).println();
+      writer.println("   */");
+      writer.format("  public Buffer set%ss(int pos, %s[] src, int offset, int length) {", name, type).println();
+      writer.println("    if (length == 0) {");
+      writer.println("      return this;");
+      writer.println("    }");
+      writer.println("    // the last value expands the buffer once, the others are written to its ByteBuf without bound checks of the buffer");
+      writer.format("    delegate.set%s(pos + (length - 1) * %s, src[offset + length - 1]);", name, size).println();
+      writer.println("    io.netty.buffer.ByteBuf buf = delegate.getByteBuf();");
+      writer.println("    for (int i = 0; i < length - 1; i++) {");
+      writer.format("      buf.set%s(pos + i * %s, src[offset + i]);", name, size).println();
+      writer.println("    }");
+      writer.println("    return this;");
+      writer.println("  }");
+      writer.println();
+    }
+  }
+
   private void genConstant(ClassModel model, ConstantInfo constant, PrintWriter writer) {
     Doc doc = constant.getDoc();
     if (doc != null) {
       writer.println("  /**");
-      Token.toHtml(doc.getTokens(), "   *", this::renderLinkToHtml, "\n", writer);
+      Token.toHtml(doc.getTokens(), "   *", this::linkToHtml, "\n", writer);
       writer.println("   */");
     }
     writer.print(model.isConcrete() ? "  public static final" : "");
-    writer.println(" " + constant.getType().getSimpleName() + " " + constant.getName() + " = "
-      + genConvReturn(constant.getType(), null, model.getType().getName() + "." + constant.getName()) + ";");
+    writer.print(" ");
+    writer.print(constant.getType().getSimpleName());
+    writer.print(" ");
+    writer.print(constant.getName());
+    writer.print(" = ");
+    genConvReturn(constant.getType(), null, expr(model.getType().getName() + "." + constant.getName()), writer);
+    writer.println(";");
   }
 
-  private void genMethods(ClassModel model, MethodInfo method, List<String> cacheDecls, PrintWriter writer) {
-    this.genMethod(model, method, cacheDecls, writer);
+  private void genMethods(ClassModel model, String className, MethodInfo method, List<String> cacheDecls, PrintWriter writer) {
+    this.genMethod(model, className, method, cacheDecls, writer);
   }
 
 
+  private void genBatch(ClassModel model, String className, PrintWriter writer) {
+    writer.println("  /**");
+    writer.println("   * @return a new batch of commands, see {@link Batch}");
+    writer.println("   */");
+    writer.println("  public Batch batch() {");
+    writer.println("    return new Batch(this);");
+    writer.println("  }");
+    writer.println();
+    writer.println("  /**");
+    writer.println("   * Commands queued by their method and written back to back by {@link #send()}, without waiting for the");
+    writer.println("   * reply of a command before writing the next one. The commands closing the client, changing the mode of its");
+    writer.println("   * connection, e.g. {@code subscribe} or {@code monitor}, or blocking it, e.g. {@code blpop}, are not batched.");
+    writer.println("   */");
+    writer.println("  @SuppressWarnings(\"rawtypes\")");
+    writer.println("  public static final class Batch {");
+    writer.print("    private final ");
+    writer.print(className);
+    writer.println(" __client;");
+    writer.println("    private final java.util.List<Runnable> __commands = new java.util.ArrayList<>();");
+    writer.println("    private final java.util.List<io.vertx.core.Future> __futures = new java.util.ArrayList<>();");
+    writer.println();
+    writer.print("    private Batch(");
+    writer.print(className);
+    writer.println(" client) {");
+    writer.println("      this.__client = client;");
+    writer.println("    }");
+    writer.println();
+    List<MethodInfo> methods = new ArrayList<>(model.getMethods());
+    methods.addAll(model.getAnyJavaTypeMethods());
+    for (MethodInfo method : methods) {
+      if (method.getKind() != MethodKind.FUTURE || method.isStaticMethod() || BATCH_EXCLUDES.contains(method.getName())) {
+        continue;
+      }
+      MethodInfo futMethod = genFutureMethod(method);
+      writer.print("    public ");
+      if (method.getTypeParams().size() > 0) {
+        writer.print(method.getTypeParams().stream().map(TypeParamInfo::getName).collect(Collectors.joining(", ", "<", ">")));
+        writer.print(" ");
+      }
+      genTypeName(futMethod.getReturnType(), writer);
+      writer.print(" ");
+      writer.print(method.getName());
+      writer.print("(");
+      List<ParamInfo> params = futMethod.getParams();
+      for (int index = 0; index < params.size(); index++) {
+        if (index > 0) {
+          writer.print(", ");
+        }
+        genTypeName(params.get(index).getType(), writer);
+        writer.print(" ");
+        writer.print(params.get(index).getName());
+      }
+      writer.println(") {");
+      writer.print("      ");
+      genTypeName(futMethod.getReturnType(), writer);
+      writer.println(" __future = io.vertx.core.Future.future();");
+      writer.print("      __commands.add(() -> __client.");
+      writer.print(method.getName());
+      writer.print("(");
+      for (ParamInfo param : params) {
+        writer.print(param.getName());
+        writer.print(", ");
+      }
+      writer.println("__future));");
+      writer.println("      __futures.add(__future);");
+      writer.println("      return __future;");
+      writer.println("    }");
+      writer.println();
+    }
+    writer.println("    /**");
+    writer.println("     * Writes the queued commands, the batch is empty afterwards and can be reused.");
+    writer.println("     *");
+    writer.println("     * @return the results of the commands in order, failed with the first failure");
+    writer.println("     */");
+    writer.println("    public io.vertx.core.Future<java.util.List<Object>> send() {");
+    writer.println("      for (Runnable command : __commands) {");
+    writer.println("        command.run();");
+    writer.println("      }");
+    writer.println("      io.vertx.core.CompositeFuture all = io.vertx.core.CompositeFuture.all(__futures);");
+    writer.println("      __commands.clear();");
+    writer.println("      __futures.clear();");
+    writer.println("      return all.map(io.vertx.core.CompositeFuture::<Object>list);");
+    writer.println("    }");
+    writer.println("  }");
+    writer.println();
+  }
+
+  /**
+   * @return whether the model is a concrete read stream, not inheriting the pull methods of a concrete super type
+   */
+  private boolean isPullStream(ClassModel model) {
+    if (!model.isConcrete() || !((ApiTypeInfo) model.getType()).isReadStream()) {
+      return false;
+    }
+    TypeInfo superType = model.getConcreteSuperType();
+    return superType == null || !((ApiTypeInfo) superType.getRaw()).isReadStream();
+  }
+
+  private void genPull(ClassModel model, PrintWriter writer) {
+    TypeInfo eventType = ((ApiTypeInfo) model.getType()).getReadStreamArg();
+    String eventTypeName = genTypeName(eventType);
+    writer.print("  private tk.okou.vertx.future.wrapper.PullStream<");
+    writer.print(eventTypeName);
+    writer.println("> __pull;");
+    writer.println();
+    writer.println("  /**");
+    writer.println("   * @return the next event of the stream, {@code null} at the end of the stream, see {@link tk.okou.vertx.future.wrapper.PullStream}");
+    writer.println("   */");
+    writer.print("  public io.vertx.core.Future<");
+    writer.print(eventTypeName);
+    writer.println("> asyncNext() {");
+    writer.println("    return __pull().next();");
+    writer.println("  }");
+    writer.println();
+    writer.println("  /**");
+    writer.println("   * @return the events of the stream buffered since the previous pull up to {@code max}, or the next event when none is");
+    writer.println("   * buffered, an empty list at the end of the stream, see {@link tk.okou.vertx.future.wrapper.PullStream}");
+    writer.println("   */");
+    writer.print("  public io.vertx.core.Future<java.util.List<");
+    writer.print(eventTypeName);
+    writer.println(">> asyncNext(int max) {");
+    writer.println("    return __pull().next(max);");
+    writer.println("  }");
+    writer.println();
+    writer.print("  private synchronized tk.okou.vertx.future.wrapper.PullStream<");
+    writer.print(eventTypeName);
+    writer.println("> __pull() {");
+    writer.println("    if (__pull == null) {");
+    writer.print("      __pull = new tk.okou.vertx.future.wrapper.PullStream<>(delegate, __event -> ");
+    genConvReturn(eventType, null, expr("((" + eventType.getName() + ") __event)"), writer);
+    writer.print(", ");
+    writer.print(options.pullCapacity);
+    writer.println(");");
+    writer.println("    }");
+    writer.println("    return __pull;");
+    writer.println("  }");
+    writer.println();
+  }
+
   private String genFutureMethodName(MethodInfo method) {
     return "async" + Character.toUpperCase(method.getName().charAt(0)) + method.getName().substring(1);
   }
 
-  private MethodInfo genFutureMethod(MethodInfo method) {
+  MethodInfo genFutureMethod(MethodInfo method) {
     String futMethodName = this.genFutureMethodName(method);
     List<ParamInfo> futParams = new ArrayList<>();
     int count = 0;
@@ -390,15 +862,45 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
     return method.copy().setName(futMethodName).setReturnType(futReturnType).setParams(futParams);
   }
 
-  private void genRxMethod(MethodInfo method, PrintWriter writer) {
+  private void genRxMethod(ClassModel model, MethodInfo method, String probe, String flight, PrintWriter writer) {
     MethodInfo futMethod = this.genFutureMethod(method);
-    String adapterType = "io.vertx.core.Future.future";
     this.startMethodTemplate(futMethod, writer);
     writer.println(" { ");
-    writer.print("    return ");
+    String indent = "    ";
+    if (flight != null) {
+      // the callers passing equal arguments share the call in flight
+      writer.print("    return ");
+      writer.print(flight);
+      writer.print(".call(tk.okou.vertx.future.wrapper.SingleFlight.key(");
+      List<String> keyParts = new ArrayList<>();
+      if (!method.isStaticMethod()) {
+        keyParts.add("delegate");
+      }
+      futMethod.getParams().forEach(param -> keyParts.add(param.getName()));
+      writer.print(String.join(", ", keyParts));
+      writer.println("), () -> {");
+      indent = "      ";
+    }
+    if (options.directFuture) {
+      genDirectRxBody(model, method, futMethod, probe, indent, writer);
+    } else {
+      genRxBody(method, futMethod, indent, writer);
+    }
+    if (flight != null) {
+      writer.println("    });");
+    }
+    writer.println("  }");
+    writer.println();
+  }
+
+  private void genRxBody(MethodInfo method, MethodInfo futMethod, String indent, PrintWriter writer) {
+    String adapterType = "io.vertx.core.Future.future";
+    writer.print(indent);
+    writer.print("return ");
     writer.print(adapterType);
     writer.println("(handler -> {");
-    writer.print("      ");
+    writer.print(indent);
+    writer.print("  ");
     writer.print(method.getName());
     writer.print("(");
     List<ParamInfo> params = futMethod.getParams();
@@ -408,24 +910,89 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
     }
 
     writer.println("handler);");
-    writer.println("    });");
-    writer.println("  }");
-    writer.println();
+    writer.print(indent);
+    writer.println("});");
   }
 
-  private void genMethod(ClassModel model, MethodInfo method, List<String> cacheDecls, PrintWriter writer) {
-    genSimpleMethod(model, method, cacheDecls, writer);
+  private void genDirectRxBody(ClassModel model, MethodInfo method, MethodInfo futMethod, String probe, String indent, PrintWriter writer) {
+    writer.print(indent);
+    genTypeName(futMethod.getReturnType(), writer);
+    writer.println(" __future = io.vertx.core.Future.future();");
+    writer.print(indent);
+    List<ParamInfo> params = method.getParams();
+    ParamInfo handlerParam = params.get(params.size() - 1);
+    if (isSameType(handlerParam.getType(), method)) {
+      // the future is a Handler<AsyncResult<T>> the delegate accepts as is
+      genInvokeDelegate(model, method, probe != null ? genTrack(probe, "__future") : "__future", writer);
+    } else {
+      writer.print(method.getName());
+      writer.print("(");
+      for (ParamInfo param : futMethod.getParams()) {
+        writer.print(param.getName());
+        writer.print(", ");
+      }
+      writer.print("__future)");
+    }
+    writer.println(";");
+    writer.print(indent);
+    writer.println("return __future;");
+  }
+
+  private void genMethod(ClassModel model, String className, MethodInfo method, List<String> cacheDecls, PrintWriter writer) {
+    String probe = null;
+    if (options.instrument && method.getKind() == MethodKind.FUTURE) {
+      probe = "__probe_" + cacheDecls.size();
+      cacheDecls.add("  private static final tk.okou.vertx.future.wrapper.Instrumentation.Probe " + probe +
+        " = tk.okou.vertx.future.wrapper.Instrumentation.probe(\"" + model.getType().getName() + "\", \"" + method.getName() + "\");\n");
+    }
+    String flight = null;
+    if (method.getKind() == MethodKind.FUTURE && isSingleFlight(model, method)) {
+      flight = "__flight_" + cacheDecls.size();
+      cacheDecls.add("  private static final tk.okou.vertx.future.wrapper.SingleFlight " + flight +
+        " = new tk.okou.vertx.future.wrapper.SingleFlight();\n");
+    }
+    genSimpleMethod(model, className, method, probe, cacheDecls, writer);
     if (method.getKind() == MethodKind.FUTURE) {
-      genRxMethod(method, writer);
+      genRxMethod(model, method, probe, flight, writer);
+    }
+  }
+
+  /**
+   * @return whether the {@code asyncXxx} method of {@code method} shares the calls in flight, the method being listed
+   * in the {@code singleFlight} option or annotated with {@link Coalesce}
+   */
+  private boolean isSingleFlight(ClassModel model, MethodInfo method) {
+    if (options.singleFlight.contains(model.getType().getName() + "#" + method.getName())) {
+      return true;
     }
+    List<AnnotationValueInfo> annotations = model.getMethodAnnotations().get(method.getName());
+    return annotations != null && annotations.stream().anyMatch(it -> Coalesce.class.getName().equals(it.getName()));
+  }
+
+  /**
+   * @return the expression tracking {@code handler} with {@code probe} when the instrumentation is enabled
+   */
+  private String genTrack(String probe, String handler) {
+    return "tk.okou.vertx.future.wrapper.Instrumentation.ENABLED ? " + probe + ".track(" + handler + ") : " + handler;
   }
 
-  private void genSimpleMethod(ClassModel model, MethodInfo method, List<String> cacheDecls, PrintWriter writer) {
+  private void genSimpleMethod(ClassModel model, String className, MethodInfo method, String probe, List<String> cacheDecls, PrintWriter writer) {
     startMethodTemplate(method, writer);
     writer.println(" { ");
+    String lastArg = null;
+    if (probe != null) {
+      // the handler converted for the delegate, tracked from the call of the delegate
+      ParamInfo handlerParam = method.getParam(method.getParams().size() - 1);
+      writer.print("    ");
+      writer.print(handlerParam.getType().getName());
+      writer.print(" __handler = ");
+      genConvParam(handlerParam.getType(), method, expr(handlerParam.getName()), writer);
+      writer.println(";");
+      lastArg = genTrack(probe, "__handler");
+    }
     if (method.isFluent()) {
       writer.print("    ");
-      writer.print(genInvokeDelegate(model, method));
+      genInvokeDelegate(model, method, lastArg, writer);
       writer.println(";");
       if (method.getReturnType().isVariable()) {
         writer.print("    return (");
@@ -436,19 +1003,9 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
       }
     } else if (method.getReturnType().getName().equals("void")) {
       writer.print("    ");
-      writer.print(genInvokeDelegate(model, method));
+      genInvokeDelegate(model, method, lastArg, writer);
       writer.println(";");
     } else {
-      if (method.isCacheReturn()) {
-        writer.print("    if (cached_");
-        writer.print(cacheDecls.size());
-        writer.println(" != null) {");
-
-        writer.print("      return cached_");
-        writer.print(cacheDecls.size());
-        writer.println(";");
-        writer.println("    }");
-      }
       String cachedType;
       TypeInfo returnType = method.getReturnType();
       if (method.getReturnType().getKind() == PRIMITIVE) {
@@ -456,16 +1013,48 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
       } else {
         cachedType = genTypeName(returnType);
       }
+      // the cache is shared between threads: read it once, publish the first value with a CAS and return the
+      // published value to the threads losing the race
+      String cached = "cached_" + cacheDecls.size();
+      String cachedGet = method.isStaticMethod() ? cached + ".get()" : cached;
+      if (method.isCacheReturn()) {
+        writer.print("    Object __cached = ");
+        writer.print(cachedGet);
+        writer.println(";");
+        writer.println("    if (__cached != null) {");
+        writer.print("      return (");
+        writer.print(cachedType);
+        writer.println(") __cached;");
+        writer.println("    }");
+      }
       writer.print("    ");
-      writer.print(genTypeName(returnType));
+      genTypeName(returnType, writer);
       writer.print(" ret = ");
-      writer.print(genConvReturn(returnType, method, genInvokeDelegate(model, method)));
+      String invokeLastArg = lastArg;
+      genConvReturn(returnType, method, w -> genInvokeDelegate(model, method, invokeLastArg, w), writer);
       writer.println(";");
       if (method.isCacheReturn()) {
-        writer.print("    cached_");
-        writer.print(cacheDecls.size());
-        writer.println(" = ret;");
-        cacheDecls.add("private" + (method.isStaticMethod() ? " static" : "") + " " + cachedType + " cached_" + cacheDecls.size());
+        writer.print("    if (!");
+        if (method.isStaticMethod()) {
+          writer.print(cached);
+          writer.println(".compareAndSet(null, ret)) {");
+        } else {
+          writer.print(cached.toUpperCase());
+          writer.println(".compareAndSet(this, null, ret)) {");
+        }
+        writer.print("      ret = (");
+        writer.print(cachedType);
+        writer.print(") ");
+        writer.print(cachedGet);
+        writer.println(";");
+        writer.println("    }");
+        if (method.isStaticMethod()) {
+          cacheDecls.add("  private static final java.util.concurrent.atomic.AtomicReference<Object> " + cached + " = new java.util.concurrent.atomic.AtomicReference<>();\n");
+        } else {
+          cacheDecls.add("  private volatile Object " + cached + ";\n" +
+            "  private static final java.util.concurrent.atomic.AtomicReferenceFieldUpdater<" + className + ", Object> " + cached.toUpperCase() +
+            " = java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater(" + className + ".class, Object.class, \"" + cached + "\");\n");
+        }
       }
       writer.println("    return ret;");
     }
@@ -473,53 +1062,81 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
     writer.println();
   }
 
-  private String genInvokeDelegate(ClassModel model, MethodInfo method) {
-    StringBuilder ret;
+  private void genInvokeDelegate(ClassModel model, MethodInfo method, String lastArg, PrintWriter writer) {
     if (method.isStaticMethod()) {
-      ret = new StringBuilder(Helper.getNonGenericType(model.getIfaceFQCN()));
+      writer.print(Helper.getNonGenericType(model.getIfaceFQCN()));
     } else {
-      ret = new StringBuilder("delegate");
+      writer.print("delegate");
     }
-    ret.append(".").append(method.getName()).append("(");
-    int index = 0;
-    for (ParamInfo param : method.getParams()) {
+    writer.print(".");
+    writer.print(method.getName());
+    writer.print("(");
+    List<ParamInfo> params = method.getParams();
+    for (int index = 0; index < params.size(); index++) {
       if (index > 0) {
-        ret.append(", ");
+        writer.print(", ");
+      }
+      ParamInfo param = params.get(index);
+      if (lastArg != null && index == params.size() - 1) {
+        writer.print(lastArg);
+      } else {
+        genConvParam(param.getType(), method, expr(param.getName()), writer);
       }
-      TypeInfo type = param.getType();
-      ret.append(genConvParam(type, method, param.getName()));
-      index = index + 1;
     }
-    ret.append(")");
-    return ret.toString();
+    writer.print(")");
   }
 
-  private String genConvParam(TypeInfo type, MethodInfo method, String expr) {
+  /**
+   * @return an expression printing {@code expr}
+   */
+  private static Consumer<PrintWriter> expr(String expr) {
+    return writer -> writer.print(expr);
+  }
+
+  private void genConvParam(TypeInfo type, MethodInfo method, Consumer<PrintWriter> expr, PrintWriter writer) {
     ClassKind kind = type.getKind();
     if (isSameType(type, method)) {
-      return expr;
+      expr.accept(writer);
+      return;
     } else if (kind == OBJECT) {
       if (type.isVariable()) {
         String typeArg = genTypeArg((TypeVariableInfo) type, method);
         if (typeArg != null) {
-          return typeArg + ".<" + type.getName() + ">unwrap(" + expr + ")";
+          writer.print(typeArg);
+          writer.print(".<");
+          writer.print(type.getName());
+          writer.print(">unwrap(");
+          expr.accept(writer);
+          writer.print(")");
+          return;
         }
       }
-      return expr;
+      expr.accept(writer);
+      return;
     } else if (kind == API) {
+      expr.accept(writer);
       if (isFuture(type.getRaw())) {
         if (type instanceof ParameterizedTypeInfo) {
           ParameterizedTypeInfo api = (ParameterizedTypeInfo) type;
-          return expr + ".map(" + api.getArg(0).translateName("future") + "::getDelegate)";
+          writer.print(".map(");
+          writer.print(api.getArg(0).translateName("future"));
+          writer.print("::getDelegate)");
         } else {
           ApiTypeInfo api = (ApiTypeInfo) type;
-          return expr + "/*A:" + api.getHandlerArg().getName() + "*/";
+          writer.print("/*A:");
+          writer.print(api.getHandlerArg().getName());
+          writer.print("*/");
         }
       } else {
-        return expr + ".getDelegate()";
+        writer.print(".getDelegate()");
       }
+      return;
     } else if (kind == CLASS_TYPE) {
-      return tk.okou.vertx.future.wrapper.Helper.class.getName() + ".unwrap(" + expr + ")";
+      writer.print(tk.okou.vertx.future.wrapper.Helper.class.getName());
+      writer.print(".unwrap(");
+      expr.accept(writer);
+      writer.print(")");
+      return;
     } else if (type.isParameterized()) {
       ParameterizedTypeInfo parameterizedTypeInfo = (ParameterizedTypeInfo) type;
       if (kind == HANDLER) {
@@ -527,60 +1144,130 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
         ClassKind eventKind = eventType.getKind();
         if (eventKind == ASYNC_RESULT) {
           TypeInfo resultType = ((ParameterizedTypeInfo) eventType).getArg(0);
-          return "ar -> {\n" +
-            "      if (ar.succeeded()) {\n" +
-            "        " + expr + ".handle(io.vertx.core.Future.succeededFuture(" + genConvReturn(resultType, method, "ar.result()") + "));\n" +
-            "      } else {\n" +
-            "        " + expr + ".handle(io.vertx.core.Future.failedFuture(ar.cause()));\n" +
-            "      }\n" +
-            "  }";
+          String typeArg = genAdapterTypeArg(resultType, method);
+          if (typeArg != null && options.specialize && isSpecialized(resultType)) {
+            genSpecializedAdapter(resultType, "__wrappingResult", expr, writer);
+            return;
+          } else if (typeArg != null) {
+            genAdapter(AsyncResultAdapter.class, "wrapping", expr, typeArg, writer);
+            return;
+          }
+          writer.print("ar -> {\n");
+          writer.print("      if (ar.succeeded()) {\n");
+          writer.print("        ");
+          expr.accept(writer);
+          writer.print(".handle(io.vertx.core.Future.succeededFuture(");
+          genConvReturn(resultType, method, expr("ar.result()"), writer);
+          writer.print("));\n");
+          writer.print("      } else {\n");
+          writer.print("        ");
+          expr.accept(writer);
+          writer.print(".handle(io.vertx.core.Future.failedFuture(ar.cause()));\n");
+          writer.print("      }\n");
+          writer.print("  }");
         } else {
-          return " event -> {\n" +
-            "      " + expr + ".handle(" + genConvReturn(eventType, method, "event") + ");\n" +
-            "  }";
+          String typeArg = genAdapterTypeArg(eventType, method);
+          if (typeArg != null && options.specialize && isSpecialized(eventType)) {
+            genSpecializedAdapter(eventType, "__wrappingEvent", expr, writer);
+            return;
+          } else if (typeArg != null) {
+            genAdapter(HandlerAdapter.class, "wrapping", expr, typeArg, writer);
+            return;
+          }
+          writer.print(" event -> {\n");
+          writer.print("      ");
+          expr.accept(writer);
+          writer.print(".handle(");
+          genConvReturn(eventType, method, expr("event"), writer);
+          writer.print(");\n");
+          writer.print("  }");
         }
+        return;
       } else if (kind == FUNCTION) {
         TypeInfo argType = parameterizedTypeInfo.getArg(0);
         TypeInfo retType = parameterizedTypeInfo.getArg(1);
-        return " arg -> {\n" +
-          "      " + genTypeName(retType) + " ret = " + expr + ".apply(" + genConvReturn(argType, method, "arg") + ");\n" +
-          "      return " + genConvParam(retType, method, "ret") + ";\n" +
-          "  }";
+        writer.print(" arg -> {\n");
+        writer.print("      ");
+        genTypeName(retType, writer);
+        writer.print(" ret = ");
+        expr.accept(writer);
+        writer.print(".apply(");
+        genConvReturn(argType, method, expr("arg"), writer);
+        writer.print(");\n");
+        writer.print("      return ");
+        genConvParam(retType, method, expr("ret"), writer);
+        writer.print(";\n");
+        writer.print("  }");
+        return;
       } else if (kind == LIST || kind == SET) {
-        return expr + ".stream().map(elt -> " + genConvParam(parameterizedTypeInfo.getArg(0), method, "elt") + ").collect(java.util.stream.Collectors.to" + type.getRaw().getSimpleName() + "())";
+        TypeInfo eltType = parameterizedTypeInfo.getArg(0);
+        if (options.lazyCollections) {
+          genCollectionView(type, expr, "elt", w -> genConvParam(eltType, method, expr("elt"), w), writer);
+          return;
+        }
+        expr.accept(writer);
+        writer.print(".stream().map(elt -> ");
+        genConvParam(eltType, method, expr("elt"), writer);
+        writer.print(").collect(java.util.stream.Collectors.to");
+        writer.print(type.getRaw().getSimpleName());
+        writer.print("())");
+        return;
       } else if (kind == MAP) {
-        return expr + ".entrySet().stream().collect(java.util.stream.Collectors.toMap(e -> e.getKey(), e -> " + genConvParam(parameterizedTypeInfo.getArg(1), method, "e.getValue()") + "))";
+        TypeInfo valueType = parameterizedTypeInfo.getArg(1);
+        if (options.lazyCollections) {
+          genCollectionView(type, expr, "e", w -> genConvParam(valueType, method, expr("e"), w), writer);
+          return;
+        }
+        expr.accept(writer);
+        writer.print(".entrySet().stream().collect(java.util.stream.Collectors.toMap(e -> e.getKey(), e -> ");
+        genConvParam(valueType, method, expr("e.getValue()"), writer);
+        writer.print("))");
+        return;
       }
     }
-    return expr;
+    expr.accept(writer);
   }
 
-  private String genConvReturn(TypeInfo type, MethodInfo method, String expr) {
+  private void genConvReturn(TypeInfo type, MethodInfo method, Consumer<PrintWriter> expr, PrintWriter writer) {
     ClassKind kind = type.getKind();
     if (kind == OBJECT) {
       if (type.isVariable()) {
         String typeArg = genTypeArg((TypeVariableInfo) type, method);
         if (typeArg != null) {
-          return "(" + type.getName() + ")" + typeArg + ".wrap(" + expr + ")";
+          writer.print("(");
+          writer.print(type.getName());
+          writer.print(")");
+          writer.print(typeArg);
+          writer.print(".wrap(");
+          expr.accept(writer);
+          writer.print(")");
+          return;
         }
       }
-      return "(" + type.getSimpleName() + ") " + expr;
+      writer.print("(");
+      writer.print(type.getSimpleName());
+      writer.print(") ");
+      expr.accept(writer);
+      return;
     } else if (isSameType(type, method)) {
-      return expr;
+      expr.accept(writer);
+      return;
     } else if (kind == API) {
       if (isFuture(type.getRaw())) {
-        return expr;
+        expr.accept(writer);
+        return;
       }
-      StringBuilder tmp = new StringBuilder(type.getRaw().translateName("future"));
-      tmp.append(".newInstance(");
-      tmp.append(expr);
+      writer.print(type.getRaw().translateName("future"));
+      writer.print(".newInstance(");
+      expr.accept(writer);
       if (type.isParameterized()) {
         ParameterizedTypeInfo parameterizedTypeInfo = (ParameterizedTypeInfo) type;
         for (TypeInfo arg : parameterizedTypeInfo.getArgs()) {
-          tmp.append(", ");
+          writer.print(", ");
           ClassKind argKind = arg.getKind();
           if (argKind == API) {
-            tmp.append(arg.translateName("future")).append(".__TYPE_ARG");
+            writer.print(arg.translateName("future"));
+            writer.print(".__TYPE_ARG");
           } else {
             String typeArg = "tk.okou.vertx.future.wrapper.TypeArg.unknown()";
             if (argKind == OBJECT && arg.isVariable()) {
@@ -589,39 +1276,135 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
                 typeArg = resolved;
               }
             }
-            tmp.append(typeArg);
+            writer.print(typeArg);
           }
         }
       }
-      tmp.append(")");
-      return tmp.toString();
+      writer.print(")");
+      return;
     } else if (type.isParameterized()) {
       ParameterizedTypeInfo parameterizedTypeInfo = (ParameterizedTypeInfo) type;
       if (kind == HANDLER) {
         TypeInfo abc = parameterizedTypeInfo.getArg(0);
         if (abc.getKind() == ASYNC_RESULT) {
           TypeInfo tutu = ((ParameterizedTypeInfo) abc).getArg(0);
-          return "new Handler<AsyncResult<" + genTypeName(tutu) + ">>() {\n" +
-            "      public void handle(AsyncResult<" + genTypeName(tutu) + "> ar) {\n" +
-            "        if (ar.succeeded()) {\n" +
-            "          " + expr + ".handle(io.vertx.core.Future.succeededFuture(" + genConvParam(tutu, method, "ar.result()") + "));\n" +
-            "        } else {\n" +
-            "          " + expr + ".handle(io.vertx.core.Future.failedFuture(ar.cause()));\n" +
-            "        }\n" +
-            "      }\n" +
-            "    }";
+          String typeArg = genAdapterTypeArg(tutu, method);
+          if (typeArg != null) {
+            genAdapter(AsyncResultAdapter.class, "unwrapping", expr, typeArg, writer);
+            return;
+          }
+          writer.print("new Handler<AsyncResult<");
+          genTypeName(tutu, writer);
+          writer.print(">>() {\n");
+          writer.print("      public void handle(AsyncResult<");
+          genTypeName(tutu, writer);
+          writer.print("> ar) {\n");
+          writer.print("        if (ar.succeeded()) {\n");
+          writer.print("          ");
+          expr.accept(writer);
+          writer.print(".handle(io.vertx.core.Future.succeededFuture(");
+          genConvParam(tutu, method, expr("ar.result()"), writer);
+          writer.print("));\n");
+          writer.print("        } else {\n");
+          writer.print("          ");
+          expr.accept(writer);
+          writer.print(".handle(io.vertx.core.Future.failedFuture(ar.cause()));\n");
+          writer.print("        }\n");
+          writer.print("      }\n");
+          writer.print("    }");
         } else {
-          return "new Handler<" + genTypeName(abc) + ">() {\n" +
-            "      public void handle(" + genTypeName(abc) + " event) {\n" +
-            "          " + expr + ".handle(" + genConvParam(abc, method, "event") + ");\n" +
-            "      }\n" +
-            "    }";
+          String typeArg = genAdapterTypeArg(abc, method);
+          if (typeArg != null) {
+            genAdapter(HandlerAdapter.class, "unwrapping", expr, typeArg, writer);
+            return;
+          }
+          writer.print("new Handler<");
+          genTypeName(abc, writer);
+          writer.print(">() {\n");
+          writer.print("      public void handle(");
+          genTypeName(abc, writer);
+          writer.print(" event) {\n");
+          writer.print("          ");
+          expr.accept(writer);
+          writer.print(".handle(");
+          genConvParam(abc, method, expr("event"), writer);
+          writer.print(");\n");
+          writer.print("      }\n");
+          writer.print("    }");
         }
+        return;
       } else if (kind == LIST || kind == SET) {
-        return expr + ".stream().map(elt -> " + genConvReturn(parameterizedTypeInfo.getArg(0), method, "elt") + ").collect(java.util.stream.Collectors.to" + type.getRaw().getSimpleName() + "())";
+        TypeInfo eltType = parameterizedTypeInfo.getArg(0);
+        if (options.lazyCollections) {
+          genCollectionView(type, expr, "elt", w -> genConvReturn(eltType, method, expr("elt"), w), writer);
+          return;
+        }
+        expr.accept(writer);
+        writer.print(".stream().map(elt -> ");
+        genConvReturn(eltType, method, expr("elt"), writer);
+        writer.print(").collect(java.util.stream.Collectors.to");
+        writer.print(type.getRaw().getSimpleName());
+        writer.print("())");
+        return;
+      } else if (kind == MAP && options.lazyCollections) {
+        TypeInfo valueType = parameterizedTypeInfo.getArg(1);
+        genCollectionView(type, expr, "e", w -> genConvReturn(valueType, method, expr("e"), w), writer);
+        return;
       }
     }
-    return expr;
+    expr.accept(writer);
+  }
+
+  /**
+   * @return the {@code TypeArg} converting {@code type} for an adapter, {@code null} when the conversion is inlined
+   */
+  private String genAdapterTypeArg(TypeInfo type, MethodInfo method) {
+    ClassKind kind = type.getKind();
+    if (kind == API && !type.isParameterized() && !isFuture(type.getRaw()) && ((ApiTypeInfo) type).isConcrete()) {
+      return type.translateName("future") + ".__TYPE_ARG";
+    } else if (kind == OBJECT && type.isVariable()) {
+      return genTypeArg((TypeVariableInfo) type, method);
+    }
+    return null;
+  }
+
+  /**
+   * @return whether the wrapper of {@code type} has adapters of its own, see {@link #genSpecializedAdapters}
+   */
+  private boolean isSpecialized(TypeInfo type) {
+    return type.getKind() == API && !type.isParameterized() && ((ApiTypeInfo) type).isConcrete();
+  }
+
+  private void genSpecializedAdapter(TypeInfo type, String adapter, Consumer<PrintWriter> expr, PrintWriter writer) {
+    writer.print(type.translateName("future"));
+    writer.print(".");
+    writer.print(adapter);
+    writer.print("(");
+    expr.accept(writer);
+    writer.print(")");
+  }
+
+  private void genAdapter(Class<?> adapter, String direction, Consumer<PrintWriter> expr, String typeArg, PrintWriter writer) {
+    writer.print(adapter.getName());
+    writer.print(".");
+    writer.print(direction);
+    writer.print("(");
+    expr.accept(writer);
+    writer.print(", ");
+    writer.print(typeArg);
+    writer.print(")");
+  }
+
+  private void genCollectionView(TypeInfo type, Consumer<PrintWriter> expr, String param, Consumer<PrintWriter> conv, PrintWriter writer) {
+    writer.print("tk.okou.vertx.future.wrapper.CollectionViews.");
+    writer.print(type.getRaw().getSimpleName().toLowerCase());
+    writer.print("(");
+    expr.accept(writer);
+    writer.print(", ");
+    writer.print(param);
+    writer.print(" -> ");
+    conv.accept(writer);
+    writer.print(")");
   }
 
   private boolean isSameType(TypeInfo type, MethodInfo method) {
@@ -675,17 +1458,32 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
   }
 
   private String genTypeName(TypeInfo type) {
+    StringWriter buffer = new StringWriter();
+    genTypeName(type, new PrintWriter(buffer));
+    return buffer.toString();
+  }
+
+  void genTypeName(TypeInfo type, PrintWriter writer) {
     if (type.isParameterized()) {
       ParameterizedTypeInfo pt = (ParameterizedTypeInfo) type;
-      return genTypeName(pt.getRaw()) + pt.getArgs().stream().map(this::genTypeName).collect(Collectors.joining(", ", "<", ">"));
+      genTypeName(pt.getRaw(), writer);
+      writer.print("<");
+      List<TypeInfo> args = pt.getArgs();
+      for (int index = 0; index < args.size(); index++) {
+        if (index > 0) {
+          writer.print(", ");
+        }
+        genTypeName(args.get(index), writer);
+      }
+      writer.print(">");
     } else if (type.getKind() == ClassKind.API) {
       if (isFuture(type.getRaw())) {
-        return type.getRaw().getName();
+        writer.print(type.getRaw().getName());
       } else {
-        return type.translateName("future");
+        writer.print(type.translateName("future"));
       }
     } else {
-      return type.getSimpleName();
+      writer.print(type.getSimpleName());
     }
   }
 
@@ -695,7 +1493,7 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
     Doc doc = model.getDoc();
     if (doc != null) {
       writer.println("/**");
-      Token.toHtml(doc.getTokens(), " *", this::renderLinkToHtml, "\n", writer);
+      Token.toHtml(doc.getTokens(), " *", this::linkToHtml, "\n", writer);
       writer.println(" *");
       writer.println(" * <p/>");
       writer.print(" * NOTE: This class has been automatically generated from the {@link ");
@@ -706,6 +1504,49 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
   }
 
 
+  /**
+   * Renders the links of the docs of {@code model} ahead of the render pool.
+   */
+  private void resolveLinks(ClassModel model) {
+    List<List<Token>> docs = new ArrayList<>();
+    if (model.getDoc() != null) {
+      docs.add(model.getDoc().getTokens());
+    }
+    for (ConstantInfo constant : model.getConstants()) {
+      if (constant.getDoc() != null) {
+        docs.add(constant.getDoc().getTokens());
+      }
+    }
+    List<MethodInfo> methods = new ArrayList<>(model.getMethods());
+    methods.addAll(model.getAnyJavaTypeMethods());
+    for (MethodInfo method : methods) {
+      if (method.getDoc() != null) {
+        docs.add(method.getDoc().getTokens());
+      }
+      for (ParamInfo param : method.getParams()) {
+        if (param.getDescription() != null) {
+          docs.add(param.getDescription().getTokens());
+        }
+      }
+      if (method.getReturnDescription() != null) {
+        docs.add(method.getReturnDescription().getTokens());
+      }
+    }
+    for (List<Token> tokens : docs) {
+      for (Token token : tokens) {
+        if (token.isInlineTag() && ((Token.InlineTag) token).getTag() instanceof Tag.Link) {
+          Tag.Link link = (Tag.Link) ((Token.InlineTag) token).getTag();
+          links.put(link, renderLinkToHtml(link));
+        }
+      }
+    }
+  }
+
+  private String linkToHtml(Tag.Link link) {
+    String html = links.get(link);
+    return html != null ? html : renderLinkToHtml(link);
+  }
+
   private String renderLinkToHtml(Tag.Link link) {
     ClassTypeInfo rawType = link.getTargetType().getRaw();
     if (rawType.getModule() != null) {
@@ -733,7 +1574,7 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
   }
 
 
-  private void generateLicense(PrintWriter writer) {
+  void generateLicense(PrintWriter writer) {
     writer.println("/*");
     writer.println(" * Copyright 2014 Red Hat, Inc.");
     writer.println(" *");
@@ -752,7 +1593,7 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
     writer.println();
   }
 
-  private void genFutureImports(ClassModel model, PrintWriter writer) {
+  void genFutureImports(ClassModel model, PrintWriter writer) {
     for (ClassTypeInfo importedType : model.getImportedTypes()) {
       if (importedType.getKind() != ClassKind.API && !importedType.getPackageName().equals("java.lang")) {
         addImport(importedType, writer);
@@ -770,20 +1611,20 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
     Doc doc = method.getDoc();
     if (doc != null) {
       writer.println("  /**");
-      Token.toHtml(doc.getTokens(), "   *", this::renderLinkToHtml, "\n", writer);
+      Token.toHtml(doc.getTokens(), "   *", this::linkToHtml, "\n", writer);
       for (ParamInfo param : method.getParams()) {
         writer.print("   * @param ");
         writer.print(param.getName());
         writer.print(" ");
         if (param.getDescription() != null) {
-          Token.toHtml(param.getDescription().getTokens(), "", this::renderLinkToHtml, "", writer);
+          Token.toHtml(param.getDescription().getTokens(), "", this::linkToHtml, "", writer);
         }
         writer.println();
       }
       if (!method.getReturnType().getName().equals("void")) {
         writer.print("   * @return ");
         if (method.getReturnDescription() != null) {
-          Token.toHtml(method.getReturnDescription().getTokens(), "", this::renderLinkToHtml, "", writer);
+          Token.toHtml(method.getReturnDescription().getTokens(), "", this::linkToHtml, "", writer);
         }
         writer.println();
       }
@@ -808,11 +1649,19 @@ class FutureWrapperGenerator extends Generator<ClassModel> {
       writer.print(method.getTypeParams().stream().map(TypeParamInfo::getName).collect(Collectors.joining(", ", "<", ">")));
       writer.print(" ");
     }
-    writer.print(genTypeName(method.getReturnType()));
+    genTypeName(method.getReturnType(), writer);
     writer.print(" ");
     writer.print(method.getName());
     writer.print("(");
-    writer.print(method.getParams().stream().map(it -> genTypeName(it.getType()) + " " + it.getName()).collect(Collectors.joining(", ")));
+    List<ParamInfo> params = method.getParams();
+    for (int index = 0; index < params.size(); index++) {
+      if (index > 0) {
+        writer.print(", ");
+      }
+      genTypeName(params.get(index).getType(), writer);
+      writer.print(" ");
+      writer.print(params.get(index).getName());
+    }
     writer.print(")");
 
   }
@@ -9,6 +9,15 @@ import java.util.stream.Stream;
 public class FutureWrapperGeneratorLoader implements GeneratorLoader {
   @Override
   public Stream<Generator<?>> loadGenerators(ProcessingEnvironment processingEnv) {
-    return Stream.of(new FutureWrapperGenerator());
+    FutureWrapperGenerator futureWrapper = new FutureWrapperGenerator(new FutureWrapperOptions(processingEnv.getOptions()), processingEnv);
+    return Stream.of(
+      futureWrapper,
+      new SyncWrapperGenerator(futureWrapper),
+      new FutureTypeRegistryGenerator(false),
+      new FutureTypeRegistryGenerator(true),
+      new BinaryProxyGenerator(futureWrapper, BinaryProxyGenerator.PROXY_SUFFIX),
+      new BinaryProxyGenerator(futureWrapper, BinaryProxyGenerator.HANDLER_SUFFIX),
+      new BinaryProxyGenerator(futureWrapper, BinaryProxyGenerator.CODEC_SUFFIX)
+    );
   }
 }
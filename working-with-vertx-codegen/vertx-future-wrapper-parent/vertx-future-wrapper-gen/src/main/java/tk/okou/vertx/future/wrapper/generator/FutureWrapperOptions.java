@@ -0,0 +1,135 @@
+package tk.okou.vertx.future.wrapper.generator;
+
+import tk.okou.vertx.future.wrapper.PullStream;
+import tk.okou.vertx.future.wrapper.WrapperCache;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Generator options, read from the annotation processor options prefixed with {@code codegen.future.wrapper.},
+ * e.g. {@code -Acodegen.future.wrapper.directFuture=true}.
+ */
+class FutureWrapperOptions {
+
+  static final String PREFIX = "codegen.future.wrapper.";
+
+  /**
+   * Generate {@code asyncXxx} methods that pass a single {@code Future} straight to the delegate instead of
+   * going through {@code Future.future(handler -> ...)}.
+   */
+  final boolean directFuture;
+
+  /**
+   * Convert {@code List}, {@code Set} and {@code Map} arguments and returns with the read-only views of
+   * {@link tk.okou.vertx.future.wrapper.CollectionViews} instead of copying them. Only the collections whose
+   * element type is wrapped are converted, collections of strings, numbers or JSON are passed through anyway. The
+   * returned collections are read-only instead of mutable copies.
+   */
+  final boolean lazyCollections;
+
+  /**
+   * Return the same wrapper when {@code newInstance} wraps the same delegate again, through a
+   * {@link tk.okou.vertx.future.wrapper.WrapperCache} of {@code intern.capacity} wrappers per type evicting
+   * with {@code intern.eviction}.
+   */
+  final boolean intern;
+  final int internCapacity;
+  final String internEviction;
+
+  /**
+   * Comma separated API types, e.g. {@code io.vertx.redis.RedisClient}, whose wrapper gets a {@code batch()}
+   * builder queuing commands and writing them back to back, except the commands closing the client, changing the mode
+   * of its connection or blocking it.
+   */
+  final Set<String> batch;
+
+  /**
+   * Generate {@code asyncNext()} and {@code asyncNext(int max)} pulling the events of the read stream wrappers
+   * through a {@link tk.okou.vertx.future.wrapper.PullStream} buffering {@code pull.capacity} events.
+   */
+  final boolean pull;
+  final int pullCapacity;
+
+  /**
+   * Track the latency and the failures of the async calls with a {@link tk.okou.vertx.future.wrapper.Instrumentation}
+   * probe per wrapped method, when enabled at runtime.
+   */
+  final boolean instrument;
+
+  /**
+   * Add to the {@code Buffer} wrapper the pooled direct buffers of {@code directBuffer(int)} released with
+   * {@code release()} once the writes retained with {@code retainUntil(Future)} complete, the zero-copy
+   * {@code composite(Buffer...)} and the bulk {@code getInts}/{@code setInts} primitive accessors.
+   */
+  final boolean pooledBuffer;
+
+  /**
+   * Adapt the handlers of the concrete wrapper types with adapters generated per type calling {@code newInstance}
+   * directly, the shared {@link tk.okou.vertx.future.wrapper.AsyncResultAdapter} and
+   * {@link tk.okou.vertx.future.wrapper.HandlerAdapter} being kept for the type variables.
+   */
+  final boolean specialize;
+
+  /**
+   * Comma separated idempotent async methods, e.g. {@code io.vertx.redis.RedisClient#get}, whose {@code asyncXxx}
+   * method shares the call in flight with the callers passing equal arguments, through a
+   * {@link tk.okou.vertx.future.wrapper.SingleFlight} per method. The API methods annotated with
+   * {@link tk.okou.vertx.future.wrapper.Coalesce} are shared as well.
+   */
+  final Set<String> singleFlight;
+
+  /**
+   * Number of threads rendering the models while the annotation processor collects them, {@code 0} renders
+   * each model when the processor asks for it.
+   */
+  final int parallelism;
+
+  /**
+   * Stream each wrapper to its source file through the {@code Filer} instead of returning it as a string to the
+   * processor. Ignored with {@code parallelism}, whose renders are strings anyway.
+   */
+  final boolean filer;
+
+  /**
+   * Directory of the model fingerprints of the previous build, the models that did not change since are not
+   * rendered and their file is not written again. Keep it next to the generated sources so they are cleaned
+   * together.
+   */
+  final String incremental;
+
+  /**
+   * All the {@code codegen.future.wrapper.} options, a change of options renders all the models again.
+   */
+  final String fingerprint;
+
+  FutureWrapperOptions(Map<String, String> options) {
+    directFuture = flag(options, "directFuture");
+    lazyCollections = flag(options, "lazyCollections");
+    intern = flag(options, "intern");
+    internCapacity = Integer.parseInt(options.getOrDefault(PREFIX + "intern.capacity", "1024"));
+    internEviction = WrapperCache.Eviction.valueOf(options.getOrDefault(PREFIX + "intern.eviction", WrapperCache.Eviction.SECOND_CHANCE.name())).name();
+    batch = new HashSet<>(Arrays.asList(options.getOrDefault(PREFIX + "batch", "").split("\\s*,\\s*")));
+    pull = flag(options, "pull");
+    pullCapacity = Integer.parseInt(options.getOrDefault(PREFIX + "pull.capacity", String.valueOf(PullStream.DEFAULT_CAPACITY)));
+    instrument = flag(options, "instrument");
+    pooledBuffer = flag(options, "pooledBuffer");
+    specialize = flag(options, "specialize");
+    singleFlight = new HashSet<>(Arrays.asList(options.getOrDefault(PREFIX + "singleFlight", "").split("\\s*,\\s*")));
+    parallelism = Integer.parseInt(options.getOrDefault(PREFIX + "parallelism", "0"));
+    filer = flag(options, "filer") && parallelism == 0;
+    incremental = options.get(PREFIX + "incremental");
+    fingerprint = new TreeMap<>(options).entrySet().stream()
+      .filter(e -> e.getKey().startsWith(PREFIX))
+      .map(Map.Entry::toString)
+      .collect(Collectors.joining(","));
+  }
+
+  private static boolean flag(Map<String, String> options, String name) {
+    return Boolean.parseBoolean(options.get(PREFIX + name));
+  }
+}
@@ -0,0 +1,184 @@
+package tk.okou.vertx.future.wrapper.generator;
+
+import io.vertx.codegen.ClassModel;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Elements;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fingerprints of the models rendered by the previous build, one file per model in a directory.
+ * <p>
+ * A fingerprint hashes the signature, annotations and doc of every member of the model, including the inherited
+ * ones, together with the generator options and the generator class itself. The generated code also depends on the
+ * types the members refer to, e.g. whether a returned API type is concrete or generic, so the kind, annotations, type
+ * parameters and supertypes of the referenced types are hashed too.
+ */
+class ModelFingerprints {
+
+  private final Path dir;
+  private final Elements elements;
+  private final byte[] salt;
+  private final Map<String, String> current = new HashMap<>();
+  private final Map<String, Boolean> changed = new HashMap<>();
+
+  ModelFingerprints(Path dir, Elements elements, String options) {
+    this.dir = dir;
+    this.elements = elements;
+    MessageDigest digest = digest();
+    digest.update(options.getBytes(StandardCharsets.UTF_8));
+    try (InputStream in = FutureWrapperGenerator.class.getResourceAsStream(FutureWrapperGenerator.class.getSimpleName() + ".class")) {
+      if (in != null) {
+        byte[] buffer = new byte[8192];
+        int len;
+        while ((len = in.read(buffer)) != -1) {
+          digest.update(buffer, 0, len);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.salt = digest.digest();
+  }
+
+  /**
+   * @return whether the model changed since it was last {@link #store stored}
+   */
+  boolean changed(ClassModel model) {
+    return changed.computeIfAbsent(model.getFqn(), fqn -> {
+      String fingerprint = fingerprint(model.getElement());
+      current.put(fqn, fingerprint);
+      Path file = dir.resolve(fqn);
+      try {
+        return !Files.exists(file) || !fingerprint.equals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        return true;
+      }
+    });
+  }
+
+  void store(ClassModel model) {
+    String fingerprint = current.get(model.getFqn());
+    if (fingerprint != null) {
+      try {
+        Files.createDirectories(dir);
+        Files.write(dir.resolve(model.getFqn()), fingerprint.getBytes(StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private String fingerprint(TypeElement type) {
+    MessageDigest digest = digest();
+    digest.update(salt);
+    update(digest, type.getQualifiedName());
+    update(digest, type.getTypeParameters());
+    update(digest, type.getSuperclass());
+    update(digest, type.getInterfaces());
+    update(digest, type.getAnnotationMirrors());
+    update(digest, elements.getDocComment(type));
+    Map<String, TypeElement> referenced = new TreeMap<>();
+    for (TypeMirror supertype : type.getInterfaces()) {
+      collect(supertype, referenced);
+    }
+    for (Element member : elements.getAllMembers(type)) {
+      collect(member.asType(), referenced);
+      update(digest, member.getKind());
+      update(digest, member);
+      update(digest, member.getModifiers());
+      update(digest, member.getAnnotationMirrors());
+      if (member instanceof ExecutableElement) {
+        update(digest, ((ExecutableElement) member).getReturnType());
+      }
+      update(digest, elements.getDocComment(member));
+    }
+    referenced.remove(type.getQualifiedName().toString());
+    for (TypeElement element : referenced.values()) {
+      update(digest, element.getKind());
+      update(digest, element.getQualifiedName());
+      update(digest, element.getTypeParameters());
+      update(digest, element.getSuperclass());
+      update(digest, element.getInterfaces());
+      update(digest, element.getAnnotationMirrors());
+    }
+    StringBuilder sb = new StringBuilder();
+    for (byte b : digest.digest()) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Collects the declared types of {@code type}, of its type arguments, parameters and return type, except the
+   * {@code java.} ones.
+   */
+  private static void collect(TypeMirror type, Map<String, TypeElement> referenced) {
+    switch (type.getKind()) {
+      case DECLARED: {
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        String name = element.getQualifiedName().toString();
+        if (!name.startsWith("java.")) {
+          referenced.put(name, element);
+        }
+        for (TypeMirror arg : ((DeclaredType) type).getTypeArguments()) {
+          collect(arg, referenced);
+        }
+        break;
+      }
+      case ARRAY:
+        collect(((ArrayType) type).getComponentType(), referenced);
+        break;
+      case WILDCARD: {
+        WildcardType wildcard = (WildcardType) type;
+        if (wildcard.getExtendsBound() != null) {
+          collect(wildcard.getExtendsBound(), referenced);
+        }
+        if (wildcard.getSuperBound() != null) {
+          collect(wildcard.getSuperBound(), referenced);
+        }
+        break;
+      }
+      case EXECUTABLE: {
+        ExecutableType executable = (ExecutableType) type;
+        collect(executable.getReturnType(), referenced);
+        for (TypeMirror param : executable.getParameterTypes()) {
+          collect(param, referenced);
+        }
+        break;
+      }
+      default:
+        break;
+    }
+  }
+
+  private static void update(MessageDigest digest, Object o) {
+    digest.update(String.valueOf(o).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+  }
+
+  private static MessageDigest digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
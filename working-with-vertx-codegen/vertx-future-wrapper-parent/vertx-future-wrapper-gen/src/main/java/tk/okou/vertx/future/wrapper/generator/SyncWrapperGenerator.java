@@ -0,0 +1,182 @@
+package tk.okou.vertx.future.wrapper.generator;
+
+import io.vertx.codegen.ClassModel;
+import io.vertx.codegen.Generator;
+import io.vertx.codegen.MethodInfo;
+import io.vertx.codegen.MethodKind;
+import io.vertx.codegen.ParamInfo;
+import io.vertx.codegen.TypeParamInfo;
+import io.vertx.codegen.annotations.ModuleGen;
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.codegen.type.ClassTypeInfo;
+import io.vertx.codegen.type.ParameterizedTypeInfo;
+import io.vertx.codegen.type.TypeInfo;
+import io.vertx.codegen.writer.CodeWriter;
+import tk.okou.vertx.future.wrapper.Sync;
+
+import java.io.StringWriter;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a blocking facade of each future wrapper having async methods, e.g. {@code String get(key)} calling
+ * {@code asyncGet(key)} and waiting for it with {@link Sync#await}.
+ */
+class SyncWrapperGenerator extends Generator<ClassModel> {
+
+  private final FutureWrapperGenerator futureWrapper;
+
+  SyncWrapperGenerator(FutureWrapperGenerator futureWrapper) {
+    this.futureWrapper = futureWrapper;
+    this.name = "SyncWrapper";
+    this.kinds = Collections.singleton("class");
+  }
+
+  @Override
+  public Collection<Class<? extends Annotation>> annotations() {
+    return Arrays.asList(VertxGen.class, ModuleGen.class);
+  }
+
+  private List<MethodInfo> futureMethods(ClassModel model) {
+    List<MethodInfo> methods = new ArrayList<>();
+    for (MethodInfo method : model.getMethods()) {
+      if (method.getKind() == MethodKind.FUTURE) {
+        methods.add(method);
+      }
+    }
+    for (MethodInfo method : model.getAnyJavaTypeMethods()) {
+      if (method.getKind() == MethodKind.FUTURE) {
+        methods.add(method);
+      }
+    }
+    return methods;
+  }
+
+  @Override
+  public String filename(ClassModel model) {
+    if (futureWrapper.isFuture(model.getType()) || futureMethods(model).isEmpty()) {
+      return null;
+    }
+    return model.getType().translateName("sync") + ".java";
+  }
+
+  @Override
+  public String render(ClassModel model, int index, int size, Map<String, Object> session) {
+    ClassTypeInfo type = model.getType();
+    String futureType = type.translateName("future");
+    String typeParams = "";
+    if (model.getTypeParams().size() > 0) {
+      typeParams = model.getTypeParams().stream().map(TypeParamInfo.Class::getName).collect(Collectors.joining(",", "<", ">"));
+    }
+    StringWriter buffer = new StringWriter();
+    CodeWriter writer = new CodeWriter(buffer);
+
+    futureWrapper.generateLicense(writer);
+
+    writer.print("package ");
+    writer.print(type.translatePackageName("sync"));
+    writer.println(";");
+    writer.println();
+
+    writer.println("import java.util.Map;");
+    futureWrapper.genFutureImports(model, writer);
+    writer.println();
+
+    writer.println("/**");
+    writer.print(" * Blocking facade of {@link ");
+    writer.print(futureType);
+    writer.println("}, each method parks the calling thread until the operation");
+    writer.println(" * completes. Call them on a virtual thread or a worker thread, they fail on an event loop thread.");
+    writer.println(" */");
+    writer.print("public class ");
+    writer.print(type.getSimpleName());
+    writer.print(typeParams);
+    writer.println(" {");
+    writer.println();
+
+    writer.print("  private final ");
+    writer.print(futureType);
+    writer.print(typeParams);
+    writer.println(" delegate;");
+    writer.println();
+
+    writer.print("  public ");
+    writer.print(type.getSimpleName());
+    writer.print("(");
+    writer.print(futureType);
+    writer.print(typeParams);
+    writer.println(" delegate) {");
+    writer.println("    this.delegate = delegate;");
+    writer.println("  }");
+    writer.println();
+
+    writer.print("  public ");
+    writer.print(futureType);
+    writer.print(typeParams);
+    writer.println(" getDelegate() {");
+    writer.println("    return delegate;");
+    writer.println("  }");
+    writer.println();
+
+    for (MethodInfo method : futureMethods(model)) {
+      genSyncMethod(futureType, method, writer);
+    }
+    writer.println("}");
+    return buffer.toString();
+  }
+
+  private void genSyncMethod(String futureType, MethodInfo method, CodeWriter writer) {
+    MethodInfo futMethod = futureWrapper.genFutureMethod(method);
+    TypeInfo resultType = ((ParameterizedTypeInfo) futMethod.getReturnType()).getArg(0);
+    boolean isVoid = resultType.getName().equals(Void.class.getName());
+    if (method.isDeprecated()) {
+      writer.println("  @Deprecated()");
+    }
+    writer.print("  public ");
+    if (method.isStaticMethod()) {
+      writer.print("static ");
+    }
+    if (method.getTypeParams().size() > 0) {
+      writer.print(method.getTypeParams().stream().map(TypeParamInfo::getName).collect(Collectors.joining(", ", "<", ">")));
+      writer.print(" ");
+    }
+    if (isVoid) {
+      writer.print("void");
+    } else {
+      futureWrapper.genTypeName(resultType, writer);
+    }
+    writer.print(" ");
+    writer.print(method.getName());
+    writer.print("(");
+    List<ParamInfo> params = futMethod.getParams();
+    for (int index = 0; index < params.size(); index++) {
+      if (index > 0) {
+        writer.print(", ");
+      }
+      futureWrapper.genTypeName(params.get(index).getType(), writer);
+      writer.print(" ");
+      writer.print(params.get(index).getName());
+    }
+    writer.println(") {");
+    writer.print("    ");
+    if (!isVoid) {
+      writer.print("return ");
+    }
+    writer.print(Sync.class.getName());
+    writer.print(".await(");
+    writer.print(method.isStaticMethod() ? futureType : "delegate");
+    writer.print(".");
+    writer.print(futMethod.getName());
+    writer.print("(");
+    writer.print(params.stream().map(ParamInfo::getName).collect(Collectors.joining(", ")));
+    writer.println("));");
+    writer.println("  }");
+    writer.println();
+  }
+}
@@ -0,0 +1,61 @@
+package tk.okou.vertx.future.wrapper;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertSame;
+
+public class WrapperCacheTest {
+
+  private static final int THREADS = 8;
+  private static final int ROUNDS = 1000;
+
+  private static final class Wrapper {
+    private final Object delegate;
+
+    private Wrapper(Object delegate) {
+      this.delegate = delegate;
+    }
+  }
+
+  @Test
+  public void replaceReturnsTheSameWrapperToConcurrentMisses() throws Exception {
+    concurrentMisses(WrapperCache.Eviction.REPLACE);
+  }
+
+  @Test
+  public void secondChanceReturnsTheSameWrapperToConcurrentMisses() throws Exception {
+    concurrentMisses(WrapperCache.Eviction.SECOND_CHANCE);
+  }
+
+  private void concurrentMisses(WrapperCache.Eviction eviction) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (int round = 0; round < ROUNDS; round++) {
+        WrapperCache<Object, Wrapper> cache = WrapperCache.create(16, eviction, w -> w.delegate);
+        Object delegate = new Object();
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        List<Future<Wrapper>> wrappers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+          wrappers.add(executor.submit(() -> {
+            barrier.await();
+            return cache.get(delegate, Wrapper::new);
+          }));
+        }
+        Wrapper first = wrappers.get(0).get();
+        for (Future<Wrapper> wrapper : wrappers) {
+          assertSame(first, wrapper.get());
+        }
+        assertSame(first, cache.get(delegate, Wrapper::new));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
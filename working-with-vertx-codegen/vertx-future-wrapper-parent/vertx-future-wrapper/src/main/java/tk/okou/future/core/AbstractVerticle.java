@@ -1,14 +1,40 @@
 package tk.okou.future.core;
 
+import io.vertx.core.Future;
 import io.vertx.core.Verticle;
 import io.vertx.core.json.JsonObject;
 import io.vertx.future.core.Context;
 import io.vertx.future.core.Vertx;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
+/**
+ * The start of the verticle calls {@link #start()}, then runs {@link #asyncStart()} and the phases registered with
+ * {@link #startPhase(String, Supplier)} concurrently, failing when they did not complete within the
+ * {@value #START_TIMEOUT} milliseconds of the configuration. The stop does the same with {@link #stop()},
+ * {@link #asyncStop()}, {@link #stopPhase(String, Supplier)} and {@value #STOP_TIMEOUT}.
+ * <p>
+ * The time taken by each step is recorded in {@link #startTimings()} and {@link #stopTimings()}.
+ */
 public abstract class AbstractVerticle implements Verticle {
 
+  /**
+   * Configuration key of the start timeout in milliseconds, no timeout by default.
+   */
+  public static final String START_TIMEOUT = "startTimeout";
+
+  /**
+   * Configuration key of the stop timeout in milliseconds, no timeout by default.
+   */
+  public static final String STOP_TIMEOUT = "stopTimeout";
+
   /**
    * Reference to the Vert.x instance that deployed this verticle
    */
@@ -19,6 +45,11 @@ public abstract class AbstractVerticle implements Verticle {
    */
   protected Context context;
 
+  private final List<Phase> startPhases = new ArrayList<>();
+  private final List<Phase> stopPhases = new ArrayList<>();
+  final Map<String, Long> startTimings = Collections.synchronizedMap(new LinkedHashMap<>());
+  final Map<String, Long> stopTimings = Collections.synchronizedMap(new LinkedHashMap<>());
+
   /**
    * Get the Vert.x instance
    *
@@ -82,8 +113,10 @@ public abstract class AbstractVerticle implements Verticle {
    */
   @Override
   public void start(io.vertx.core.Future<Void> startFuture) throws Exception {
+    long begin = System.nanoTime();
     start();
-    startFuture.complete();
+    startTimings.put("start", System.nanoTime() - begin);
+    runStartPhases(startFuture);
   }
 
   /**
@@ -97,8 +130,10 @@ public abstract class AbstractVerticle implements Verticle {
    */
   @Override
   public void stop(io.vertx.core.Future<Void> stopFuture) throws Exception {
+    long begin = System.nanoTime();
     stop();
-    stopFuture.complete();
+    stopTimings.put("stop", System.nanoTime() - begin);
+    runStopPhases(stopFuture);
   }
 
   /**
@@ -119,4 +154,164 @@ public abstract class AbstractVerticle implements Verticle {
   public void stop() throws Exception {
   }
 
+  /**
+   * If your verticle starts asynchronously, e.g. binds a server or connects a client, override this method and
+   * return a future completed once started. It runs concurrently with the start phases.
+   *
+   * @return a future completed when start-up is complete
+   */
+  public Future<Void> asyncStart() {
+    return Future.succeededFuture();
+  }
+
+  /**
+   * If your verticle stops asynchronously, override this method and return a future completed once stopped. It runs
+   * concurrently with the stop phases.
+   *
+   * @return a future completed when clean-up is complete
+   */
+  public Future<Void> asyncStop() {
+    return Future.succeededFuture();
+  }
+
+  /**
+   * Registers a start-up task independent of the others, to be called from {@link #start()}: the phases are run
+   * concurrently once {@link #start()} returned.
+   *
+   * @param name the name of the phase in {@link #startTimings()}, unique among the start phases
+   * @param phase the task, returning a future completed when it is done
+   * @throws IllegalArgumentException when the name is already taken
+   */
+  protected void startPhase(String name, Supplier<? extends Future<?>> phase) {
+    register(startPhases, new Phase(name, phase), "start", "asyncStart");
+  }
+
+  /**
+   * Registers a clean-up task independent of the others, run concurrently once {@link #stop()} returned.
+   *
+   * @param name the name of the phase in {@link #stopTimings()}, unique among the stop phases
+   * @param phase the task, returning a future completed when it is done
+   * @throws IllegalArgumentException when the name is already taken
+   */
+  protected void stopPhase(String name, Supplier<? extends Future<?>> phase) {
+    register(stopPhases, new Phase(name, phase), "stop", "asyncStop");
+  }
+
+  private static void register(List<Phase> phases, Phase phase, String... reserved) {
+    boolean taken = Arrays.asList(reserved).contains(phase.name);
+    for (Phase registered : phases) {
+      taken |= registered.name.equals(phase.name);
+    }
+    if (taken) {
+      throw new IllegalArgumentException("Phase " + phase.name + " is already registered");
+    }
+    phases.add(phase);
+  }
+
+  /**
+   * @return the nanoseconds taken by {@code start}, {@code asyncStart} and each start phase, in the order they
+   * completed
+   */
+  public Map<String, Long> startTimings() {
+    synchronized (startTimings) {
+      return new LinkedHashMap<>(startTimings);
+    }
+  }
+
+  /**
+   * @return the nanoseconds taken by {@code stop}, {@code asyncStop} and each stop phase, in the order they completed
+   */
+  public Map<String, Long> stopTimings() {
+    synchronized (stopTimings) {
+      return new LinkedHashMap<>(stopTimings);
+    }
+  }
+
+  /**
+   * Runs {@link #asyncStart()} and the start phases, then completes {@code startFuture}.
+   */
+  void runStartPhases(Future<Void> startFuture) {
+    runPhases(new Phase("asyncStart", this::asyncStart), startPhases, startTimings, config().getLong(START_TIMEOUT, 0L), startFuture);
+  }
+
+  /**
+   * Runs {@link #asyncStop()} and the stop phases, then completes {@code stopFuture}.
+   */
+  void runStopPhases(Future<Void> stopFuture) {
+    runPhases(new Phase("asyncStop", this::asyncStop), stopPhases, stopTimings, config().getLong(STOP_TIMEOUT, 0L), stopFuture);
+  }
+
+  private void runPhases(Phase first, List<Phase> registered, Map<String, Long> timings, long timeout, Future<Void> future) {
+    List<Phase> phases = new ArrayList<>(registered.size() + 1);
+    phases.add(first);
+    phases.addAll(registered);
+    List<Future<Object>> runs = new ArrayList<>(Collections.nCopies(phases.size(), null));
+    Future<Object[]> all = FanOut.all(phases.size(), i -> {
+      Future<Object> run = phases.get(i).run(timings);
+      runs.set(i, run);
+      return run;
+    });
+    if (timeout > 0) {
+      long timer = vertx.setTimer(timeout, id -> {
+        List<String> pending = new ArrayList<>();
+        for (int i = 0; i < phases.size(); i++) {
+          if (runs.get(i) == null || !runs.get(i).isComplete()) {
+            pending.add(phases.get(i).name);
+          }
+        }
+        all.tryFail(new TimeoutException("Phases " + pending + " not complete after " + timeout + "ms"));
+      });
+      all.setHandler(ar -> {
+        vertx.cancelTimer(timer);
+        complete(ar.failed() ? ar.cause() : null, future);
+      });
+    } else {
+      all.setHandler(ar -> complete(ar.failed() ? ar.cause() : null, future));
+    }
+  }
+
+  private static void complete(Throwable failure, Future<Void> future) {
+    if (failure == null) {
+      future.complete();
+    } else {
+      future.fail(failure);
+    }
+  }
+
+  private static final class Phase {
+    private final String name;
+    private final Supplier<? extends Future<?>> task;
+
+    private Phase(String name, Supplier<? extends Future<?>> task) {
+      this.name = name;
+      this.task = task;
+    }
+
+    private Future<Object> run(Map<String, Long> timings) {
+      long begin = System.nanoTime();
+      Future<Object> done = Future.future();
+      start().setHandler(ar -> {
+        if (ar.succeeded()) {
+          timings.put(name, System.nanoTime() - begin);
+          done.complete();
+        } else {
+          done.fail(ar.cause());
+        }
+      });
+      return done;
+    }
+
+    private Future<?> start() {
+      Future<?> started;
+      try {
+        started = task.get();
+      } catch (RuntimeException e) {
+        return Future.failedFuture(e);
+      }
+      if (started == null) {
+        return Future.failedFuture(new NullPointerException("Phase " + name + " returned no future"));
+      }
+      return started;
+    }
+  }
 }
@@ -0,0 +1,188 @@
+package tk.okou.future.core;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.future.core.shareddata.AsyncMap;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * An {@link AsyncMap} serving its reads from a {@link NearCache} and writing through to the map it decorates.
+ * <pre>
+ * AsyncMap&lt;String, Session&gt; sessions = new CachingAsyncMap&lt;&gt;(map, 10_000, 5, TimeUnit.MINUTES);
+ * </pre>
+ * The puts and removes update the cache once the map has completed them, the puts with a {@code ttl} being cached no
+ * longer than their {@code ttl}. The conditional writes invalidate the key before and after the write, and a failed
+ * write invalidates it too. {@link #asyncClear} invalidates the whole cache. The writes made to the map by other
+ * means, e.g. by another node of a cluster, are seen once the cached value expires.
+ * <p>
+ * {@link #getIfPresent} reads the cache synchronously, without allocating a future.
+ */
+public class CachingAsyncMap<K, V> extends AsyncMap<K, V> {
+
+  private final AsyncMap<K, V> map;
+  private final NearCache<K, V> cache;
+
+  public CachingAsyncMap(AsyncMap<K, V> map, int maximumSize, long ttl, TimeUnit unit) {
+    this(map, new NearCache<>(maximumSize, ttl, unit));
+  }
+
+  public CachingAsyncMap(AsyncMap<K, V> map, NearCache<K, V> cache) {
+    super(map.getDelegate(), map.__typeArg_0, map.__typeArg_1);
+    this.map = map;
+    this.cache = cache;
+  }
+
+  /**
+   * @return the cached value, {@code null} when it is not cached or cached as absent
+   */
+  public V getIfPresent(K k) {
+    return cache.getIfPresent(k);
+  }
+
+  public NearCache<K, V> cache() {
+    return cache;
+  }
+
+  @Override
+  public void get(K k, Handler<AsyncResult<V>> resultHandler) {
+    asyncGet(k).setHandler(resultHandler);
+  }
+
+  @Override
+  public Future<V> asyncGet(K k) {
+    return cache.get(k, map::asyncGet);
+  }
+
+  @Override
+  public void put(K k, V v, Handler<AsyncResult<Void>> completionHandler) {
+    asyncPut(k, v).setHandler(completionHandler);
+  }
+
+  @Override
+  public Future<Void> asyncPut(K k, V v) {
+    return writing(k, map.asyncPut(k, v), r -> cache.put(k, v));
+  }
+
+  @Override
+  public void put(K k, V v, long ttl, Handler<AsyncResult<Void>> completionHandler) {
+    asyncPut(k, v, ttl).setHandler(completionHandler);
+  }
+
+  @Override
+  public Future<Void> asyncPut(K k, V v, long ttl) {
+    return writing(k, map.asyncPut(k, v, ttl), r -> cache.put(k, v, ttl, TimeUnit.MILLISECONDS));
+  }
+
+  @Override
+  public void putIfAbsent(K k, V v, Handler<AsyncResult<V>> completionHandler) {
+    asyncPutIfAbsent(k, v).setHandler(completionHandler);
+  }
+
+  @Override
+  public Future<V> asyncPutIfAbsent(K k, V v) {
+    return writing(k, map.asyncPutIfAbsent(k, v), previous -> cache.put(k, previous != null ? previous : v));
+  }
+
+  @Override
+  public void putIfAbsent(K k, V v, long ttl, Handler<AsyncResult<V>> completionHandler) {
+    asyncPutIfAbsent(k, v, ttl).setHandler(completionHandler);
+  }
+
+  @Override
+  public Future<V> asyncPutIfAbsent(K k, V v, long ttl) {
+    return writing(k, map.asyncPutIfAbsent(k, v, ttl), previous -> {
+      if (previous == null) {
+        cache.put(k, v, ttl, TimeUnit.MILLISECONDS);
+      } else {
+        cache.invalidate(k);
+      }
+    });
+  }
+
+  @Override
+  public void remove(K k, Handler<AsyncResult<V>> resultHandler) {
+    asyncRemove(k).setHandler(resultHandler);
+  }
+
+  @Override
+  public Future<V> asyncRemove(K k) {
+    return writing(k, map.asyncRemove(k), previous -> cache.put(k, null));
+  }
+
+  @Override
+  public void removeIfPresent(K k, V v, Handler<AsyncResult<Boolean>> resultHandler) {
+    asyncRemoveIfPresent(k, v).setHandler(resultHandler);
+  }
+
+  @Override
+  public Future<Boolean> asyncRemoveIfPresent(K k, V v) {
+    cache.invalidate(k);
+    return writing(k, map.asyncRemoveIfPresent(k, v), r -> cache.invalidate(k));
+  }
+
+  @Override
+  public void replace(K k, V v, Handler<AsyncResult<V>> resultHandler) {
+    asyncReplace(k, v).setHandler(resultHandler);
+  }
+
+  @Override
+  public Future<V> asyncReplace(K k, V v) {
+    cache.invalidate(k);
+    return writing(k, map.asyncReplace(k, v), r -> cache.invalidate(k));
+  }
+
+  @Override
+  public void replaceIfPresent(K k, V oldValue, V newValue, Handler<AsyncResult<Boolean>> resultHandler) {
+    asyncReplaceIfPresent(k, oldValue, newValue).setHandler(resultHandler);
+  }
+
+  @Override
+  public Future<Boolean> asyncReplaceIfPresent(K k, V oldValue, V newValue) {
+    cache.invalidate(k);
+    return writing(k, map.asyncReplaceIfPresent(k, oldValue, newValue), r -> cache.invalidate(k));
+  }
+
+  @Override
+  public void clear(Handler<AsyncResult<Void>> resultHandler) {
+    asyncClear().setHandler(resultHandler);
+  }
+
+  @Override
+  public Future<Void> asyncClear() {
+    cache.invalidateAll();
+    return map.asyncClear().map(r -> {
+      cache.invalidateAll();
+      return r;
+    });
+  }
+
+  @Override
+  public void size(Handler<AsyncResult<Integer>> resultHandler) {
+    map.size(resultHandler);
+  }
+
+  @Override
+  public Future<Integer> asyncSize() {
+    return map.asyncSize();
+  }
+
+  /**
+   * Updates the cache with the result of {@code write}, or invalidates {@code k} when it failed since the write may
+   * have been applied.
+   */
+  private <T> Future<T> writing(K k, Future<T> write, Consumer<T> update) {
+    Future<T> future = Future.future();
+    write.setHandler(ar -> {
+      if (ar.succeeded()) {
+        update.accept(ar.result());
+      } else {
+        cache.invalidate(k);
+      }
+      future.handle(ar);
+    });
+    return future;
+  }
+}
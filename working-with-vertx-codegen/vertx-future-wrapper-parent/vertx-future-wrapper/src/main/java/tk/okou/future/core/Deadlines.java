@@ -0,0 +1,259 @@
+package tk.okou.future.core;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Closeable;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.future.core.Vertx;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deadlines of async calls kept in a hashed timing wheel per context, instead of a Vert.x timer per call.
+ * <pre>
+ * Deadlines deadlines = new Deadlines(vertx);
+ * deadlines.timeout(redis.asyncGet(key), 200, TimeUnit.MILLISECONDS)
+ * </pre>
+ * A context gets a wheel of {@code wheelSize} buckets of a {@code tick} each on its first deadline, closed with the
+ * context. The callers without a context share a wheel.
+ * <p>
+ * A deadline is linked into the bucket of its tick, and unlinked when its call completes first, both in constant time.
+ * While deadlines are pending, a periodic timer advances the wheel a tick at a time and fails the expired calls of
+ * each bucket at once with a {@link TimeoutException}. A deadline expires up to two ticks late, never early.
+ * <p>
+ * A wheel is only updated on its context, so it needs no lock: a deadline added or cancelled from another thread goes
+ * through {@code runOnContext}, e.g. when the call completes on the event loop of another client.
+ */
+public final class Deadlines {
+
+  private final io.vertx.core.Vertx vertx;
+  private final long tickMillis;
+  private final long tickNanos;
+  private final int wheelSize;
+  private final Map<Context, Wheel> byContext = new ConcurrentHashMap<>();
+  private Wheel shared;
+
+  public Deadlines(Vertx vertx) {
+    this(vertx, 10, TimeUnit.MILLISECONDS, 512);
+  }
+
+  /**
+   * @param tick      the resolution of the deadlines, at least a millisecond
+   * @param wheelSize the number of buckets, rounded up to a power of two; the deadlines further than a turn of the
+   *                  wheel are skipped by the turns before theirs
+   */
+  public Deadlines(Vertx vertx, long tick, TimeUnit unit, int wheelSize) {
+    if (tick <= 0 || wheelSize <= 0) {
+      throw new IllegalArgumentException("tick and wheelSize must be positive");
+    }
+    this.vertx = vertx.getDelegate();
+    this.tickMillis = Math.max(unit.toMillis(tick), 1);
+    this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+    this.wheelSize = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+  }
+
+  /**
+   * @return the result of {@code future}, or else failed with a {@link TimeoutException} once {@code timeout} elapsed;
+   * the call itself is not interrupted
+   */
+  public <T> Future<T> timeout(Future<T> future, long timeout, TimeUnit unit) {
+    if (future.isComplete()) {
+      return future;
+    }
+    Wheel wheel = wheel();
+    Deadline<T> deadline = new Deadline<>(wheel, unit.toMillis(timeout));
+    wheel.add(deadline);
+    future.setHandler(deadline);
+    return deadline.result;
+  }
+
+  /**
+   * @return the deadlines pending in every wheel, only an estimate when read off the contexts of the wheels
+   */
+  public int pending() {
+    int pending = 0;
+    for (Wheel wheel : byContext.values()) {
+      pending += wheel.size;
+    }
+    synchronized (this) {
+      if (shared != null) {
+        pending += shared.size;
+      }
+    }
+    return pending;
+  }
+
+  private Wheel wheel() {
+    Context context = io.vertx.core.Vertx.currentContext();
+    if (context == null) {
+      synchronized (this) {
+        if (shared == null) {
+          shared = new Wheel(vertx.getOrCreateContext());
+        }
+        return shared;
+      }
+    }
+    Wheel wheel = byContext.get(context);
+    if (wheel == null) {
+      Wheel created = new Wheel(context);
+      wheel = byContext.putIfAbsent(context, created);
+      if (wheel == null) {
+        wheel = created;
+        context.addCloseHook(created);
+      }
+    }
+    return wheel;
+  }
+
+  /**
+   * The deadline of a call, linked in the bucket of its tick while pending.
+   */
+  private static final class Deadline<T> implements Handler<AsyncResult<T>> {
+    private final Wheel wheel;
+    private final long timeoutMillis;
+    private final Future<T> result = Future.future();
+    private long tick;
+    private int bucket = -1;
+    private Deadline<?> prev;
+    private Deadline<?> next;
+
+    private Deadline(Wheel wheel, long timeoutMillis) {
+      this.wheel = wheel;
+      this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void handle(AsyncResult<T> ar) {
+      if (ar.succeeded() ? result.tryComplete(ar.result()) : result.tryFail(ar.cause())) {
+        wheel.remove(this);
+      }
+    }
+
+    private void expire() {
+      result.tryFail(new TimeoutException("Timed out after " + timeoutMillis + "ms"));
+    }
+  }
+
+  /**
+   * The buckets of a context, updated on the context only.
+   */
+  private final class Wheel implements Closeable {
+    private final Context context;
+    private final Deadline<?>[] buckets = new Deadline<?>[wheelSize];
+    private final int mask = wheelSize - 1;
+    private final long startNanos = System.nanoTime();
+    private long tick;
+    private long timer = -1;
+    private int size;
+
+    private Wheel(Context context) {
+      this.context = context;
+    }
+
+    private void add(Deadline<?> deadline) {
+      if (io.vertx.core.Vertx.currentContext() != context) {
+        context.runOnContext(v -> add(deadline));
+        return;
+      }
+      if (deadline.result.isComplete()) {
+        return;
+      }
+      // the last advance may be a while ago, e.g. during a long task of the event loop
+      long now = (System.nanoTime() - startNanos) / tickNanos;
+      if (timer == -1) {
+        tick = now;
+        timer = vertx.setPeriodic(tickMillis, this::advance);
+      }
+      // the current tick may be nearly over, so the deadline takes a tick more to never expire early
+      deadline.tick = now + 1 + (deadline.timeoutMillis + tickMillis - 1) / tickMillis;
+      int bucket = (int) deadline.tick & mask;
+      Deadline<?> head = buckets[bucket];
+      deadline.bucket = bucket;
+      deadline.next = head;
+      if (head != null) {
+        head.prev = deadline;
+      }
+      buckets[bucket] = deadline;
+      size++;
+    }
+
+    private void remove(Deadline<?> deadline) {
+      if (io.vertx.core.Vertx.currentContext() != context) {
+        context.runOnContext(v -> remove(deadline));
+        return;
+      }
+      if (deadline.bucket >= 0) {
+        unlink(deadline);
+      }
+    }
+
+    private void unlink(Deadline<?> deadline) {
+      if (deadline.prev != null) {
+        deadline.prev.next = deadline.next;
+      } else {
+        buckets[deadline.bucket] = deadline.next;
+      }
+      if (deadline.next != null) {
+        deadline.next.prev = deadline.prev;
+      }
+      deadline.prev = null;
+      deadline.next = null;
+      deadline.bucket = -1;
+      size--;
+    }
+
+    /**
+     * Expires the buckets of the ticks elapsed since the last advance, the periodic timer being stopped once the
+     * wheel is empty.
+     */
+    private void advance(long id) {
+      long now = (System.nanoTime() - startNanos) / tickNanos;
+      while (tick < now && size > 0) {
+        tick++;
+        expire(buckets[(int) tick & mask]);
+      }
+      if (size == 0) {
+        tick = now;
+        vertx.cancelTimer(timer);
+        timer = -1;
+      }
+    }
+
+    /**
+     * Unlinks the expired deadlines of a bucket, then fails their calls, whose handlers may add deadlines to the
+     * bucket.
+     */
+    private void expire(Deadline<?> deadline) {
+      Deadline<?> expired = null;
+      while (deadline != null) {
+        Deadline<?> next = deadline.next;
+        if (deadline.tick <= tick) {
+          unlink(deadline);
+          deadline.next = expired;
+          expired = deadline;
+        }
+        deadline = next;
+      }
+      while (expired != null) {
+        Deadline<?> next = expired.next;
+        expired.next = null;
+        expired.expire();
+        expired = next;
+      }
+    }
+
+    @Override
+    public void close(Handler<AsyncResult<Void>> completionHandler) {
+      byContext.remove(context, this);
+      if (timer != -1) {
+        vertx.cancelTimer(timer);
+        timer = -1;
+      }
+      completionHandler.handle(Future.succeededFuture());
+    }
+  }
+}
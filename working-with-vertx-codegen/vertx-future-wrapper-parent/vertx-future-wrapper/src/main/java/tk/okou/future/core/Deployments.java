@@ -0,0 +1,123 @@
+package tk.okou.future.core;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Verticle;
+import io.vertx.future.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Deploys instances of a verticle as separate deployments, one per event loop by default, so that each can be
+ * undeployed or replaced on its own.
+ * <pre>
+ * Deployments.deploy(vertx, HttpVerticle::new)
+ *   .compose(ids -&gt; Deployments.redeploy(vertx, ids, HttpVerticle::new))
+ * </pre>
+ * Servers listening on the same port share it between the deployments, {@link #redeploy} replaces the deployments one
+ * at a time so the others keep serving.
+ */
+public final class Deployments {
+
+  private Deployments() {
+  }
+
+  /**
+   * @return the number of event loops of {@code vertx}
+   */
+  public static int eventLoops(Vertx vertx) {
+    int count = 0;
+    for (EventExecutor ignored : vertx.getDelegate().nettyEventLoopGroup()) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * @return {@code options} with a worker pool named {@code name} of a thread per core
+   */
+  public static DeploymentOptions withWorkerPool(DeploymentOptions options, String name) {
+    return options.setWorkerPoolName(name).setWorkerPoolSize(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Deploys an instance per event loop of {@code vertx}.
+   */
+  public static Future<List<String>> deploy(Vertx vertx, Supplier<? extends Verticle> verticle) {
+    return deploy(vertx, verticle, eventLoops(vertx), new DeploymentOptions());
+  }
+
+  /**
+   * Deploys an instance per event loop of {@code vertx} with {@code options}, whose {@code instances} is ignored.
+   */
+  public static Future<List<String>> deploy(Vertx vertx, Supplier<? extends Verticle> verticle, DeploymentOptions options) {
+    return deploy(vertx, verticle, eventLoops(vertx), options);
+  }
+
+  /**
+   * Deploys {@code instances} instances concurrently with {@code options}, whose {@code instances} is ignored.
+   *
+   * @return the deployment IDs, failed with the first failure once the deployed instances are undeployed
+   */
+  public static Future<List<String>> deploy(Vertx vertx, Supplier<? extends Verticle> verticle, int instances, DeploymentOptions options) {
+    DeploymentOptions single = new DeploymentOptions(options).setInstances(1);
+    String[] ids = new String[instances];
+    Future<List<String>> future = Future.future();
+    FanOut.join(instances, i -> vertx.asyncDeployVerticle(verticle.get(), single).map(id -> ids[i] = id)).setHandler(ar -> {
+      if (ar.succeeded()) {
+        future.complete(Arrays.asList(ids));
+      } else {
+        List<String> deployed = new ArrayList<>();
+        for (String id : ids) {
+          if (id != null) {
+            deployed.add(id);
+          }
+        }
+        undeploy(vertx, deployed).setHandler(v -> future.fail(ar.cause()));
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Undeploys the deployments concurrently.
+   *
+   * @return failed with the first failure once all are undeployed
+   */
+  public static Future<Void> undeploy(Vertx vertx, List<String> ids) {
+    return FanOut.join(ids.size(), i -> vertx.asyncUndeploy(ids.get(i))).mapEmpty();
+  }
+
+  /**
+   * Replaces the deployments one at a time, each is undeployed once its replacement is deployed.
+   */
+  public static Future<List<String>> redeploy(Vertx vertx, List<String> ids, Supplier<? extends Verticle> verticle) {
+    return redeploy(vertx, ids, verticle, new DeploymentOptions());
+  }
+
+  /**
+   * Replaces the deployments one at a time, each is undeployed once its replacement is deployed with
+   * {@code options}, whose {@code instances} is ignored.
+   *
+   * @return the IDs of the replacements, failed with the first failure: the deployments not replaced yet are left
+   * deployed
+   */
+  public static Future<List<String>> redeploy(Vertx vertx, List<String> ids, Supplier<? extends Verticle> verticle, DeploymentOptions options) {
+    DeploymentOptions single = new DeploymentOptions(options).setInstances(1);
+    List<String> replacements = new ArrayList<>(ids.size());
+    Future<Void> chain = Future.succeededFuture();
+    for (String id : ids) {
+      chain = chain
+        .compose(v -> vertx.asyncDeployVerticle(verticle.get(), single))
+        .compose(replacement -> {
+          replacements.add(replacement);
+          return vertx.asyncUndeploy(id);
+        });
+    }
+    return chain.map(replacements);
+  }
+}
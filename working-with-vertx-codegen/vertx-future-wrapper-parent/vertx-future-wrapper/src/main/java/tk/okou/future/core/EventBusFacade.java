@@ -0,0 +1,244 @@
+package tk.okou.future.core;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageCodec;
+import io.vertx.future.core.Vertx;
+import io.vertx.future.core.eventbus.EventBus;
+import io.vertx.future.core.eventbus.MessageConsumer;
+import tk.okou.vertx.future.wrapper.FutureGen;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Request/reply over the event bus with the bodies of the messages instead of the {@code Message} wrappers, the
+ * consumer answering with a future.
+ * <pre>
+ * EventBusFacade bus = new EventBusFacade(vertx);
+ * bus.consumer("prices", (Quote quote) -&gt; pricer.asyncPrice(quote));
+ * bus.&lt;Price&gt;asyncRequest("prices", quote).setHandler(...);
+ * bus.&lt;Price&gt;asyncRequestBatch("prices", quotes).setHandler(...);
+ * </pre>
+ * The {@link DataObject} and wrapper bodies, and the types of {@link #localCodec}, are sent and replied with the
+ * {@value #LOCAL_CODEC} codec, handing them over by reference instead of copying them: do not modify a body once
+ * sent. The codec is named, not the default codec of these types, so the other senders of the event bus keep their
+ * codecs. It does not encode to the wire, send such bodies to the consumers of the same Vert.x instance only.
+ * <p>
+ * {@link #asyncRequestBatch} sends the requests as a single message and the consumer replies with a single message,
+ * so a batch registers a single reply handler instead of one per request. A single request registers its own, the
+ * handler completing the future returned to the caller.
+ */
+public final class EventBusFacade {
+
+  /**
+   * The failure code of the replies to the requests whose future failed.
+   */
+  public static final int FAILURE = -1;
+
+  /**
+   * The name of the codec of the bodies sent by reference.
+   */
+  public static final String LOCAL_CODEC = "tk.okou.future.core.EventBusFacade.local";
+
+  private static final DeliveryOptions LOCAL_OPTIONS = new DeliveryOptions().setCodecName(LOCAL_CODEC);
+
+  private static final ClassValue<Boolean> LOCAL = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      return type.isAnnotationPresent(DataObject.class) || type.isAnnotationPresent(FutureGen.class);
+    }
+  };
+
+  private final io.vertx.core.eventbus.EventBus eventBus;
+  private final Set<Class<?>> localTypes = ConcurrentHashMap.newKeySet();
+
+  public EventBusFacade(Vertx vertx) {
+    this(vertx.eventBus());
+  }
+
+  public EventBusFacade(EventBus eventBus) {
+    this.eventBus = eventBus.getDelegate();
+    try {
+      this.eventBus.registerCodec(new LocalCodec());
+    } catch (IllegalStateException ignore) {
+      // registered by another facade
+    }
+  }
+
+  /**
+   * Sends and replies the bodies of {@code type} by reference too, with the {@value #LOCAL_CODEC} codec.
+   */
+  public EventBusFacade localCodec(Class<?> type) {
+    localTypes.add(type);
+    return this;
+  }
+
+  /**
+   * @return the body of the reply
+   */
+  public <T> Future<T> asyncRequest(String address, Object body) {
+    return asyncRequest(address, body, null);
+  }
+
+  /**
+   * @param options the options of the request, {@code null} for the defaults
+   * @return the body of the reply
+   */
+  public <T> Future<T> asyncRequest(String address, Object body, DeliveryOptions options) {
+    Reply<T> reply = new Reply<>();
+    eventBus.send(address, body, options(body, options), reply);
+    return reply.future;
+  }
+
+  /**
+   * Sends the requests as a single message to a {@link #consumer} handling them concurrently.
+   *
+   * @return the bodies of the replies by index, failed with the first failure
+   */
+  public <T> Future<List<T>> asyncRequestBatch(String address, List<?> bodies) {
+    return asyncRequestBatch(address, bodies, null);
+  }
+
+  /**
+   * Sends the requests as a single message to a {@link #consumer} handling them concurrently.
+   *
+   * @param options the options of the request, {@code null} for the defaults
+   * @return the bodies of the replies by index, failed with the first failure
+   */
+  public <T> Future<List<T>> asyncRequestBatch(String address, List<?> bodies, DeliveryOptions options) {
+    if (bodies.isEmpty()) {
+      return Future.succeededFuture(Collections.emptyList());
+    }
+    Reply<List<T>> reply = new Reply<>();
+    Batch batch = new Batch(bodies);
+    eventBus.send(address, batch, options(batch, options), reply);
+    return reply.future;
+  }
+
+  /**
+   * Replies to the requests and to the batches of {@link #asyncRequestBatch} with the results of {@code handler},
+   * the failures are replied with the {@link #FAILURE} code and the message of their cause.
+   */
+  public <T, R> MessageConsumer<Object> consumer(String address, Function<T, Future<R>> handler) {
+    return MessageConsumer.newInstance(eventBus.consumer(address, new Responder<>(handler)));
+  }
+
+  /**
+   * @return {@code options} with the {@value #LOCAL_CODEC} codec when {@code body} is sent by reference
+   */
+  private DeliveryOptions options(Object body, DeliveryOptions options) {
+    if (!isLocal(body)) {
+      return options != null ? options : new DeliveryOptions();
+    }
+    return options != null ? new DeliveryOptions(options).setCodecName(LOCAL_CODEC) : LOCAL_OPTIONS;
+  }
+
+  private boolean isLocal(Object body) {
+    return body != null && (body instanceof Batch || LOCAL.get(body.getClass()) || localTypes.contains(body.getClass()));
+  }
+
+  /**
+   * The requests of a batch, and the replies by index.
+   */
+  private static final class Batch {
+    private final List<?> bodies;
+
+    private Batch(List<?> bodies) {
+      this.bodies = bodies;
+    }
+  }
+
+  private static final class Reply<T> implements Handler<AsyncResult<Message<Object>>> {
+    private final Future<T> future = Future.future();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handle(AsyncResult<Message<Object>> ar) {
+      if (ar.succeeded()) {
+        Object body = ar.result().body();
+        future.complete((T) (body instanceof Batch ? ((Batch) body).bodies : body));
+      } else {
+        future.fail(ar.cause());
+      }
+    }
+  }
+
+  private final class Responder<T, R> implements Handler<Message<Object>> {
+    private final Function<T, Future<R>> handler;
+
+    private Responder(Function<T, Future<R>> handler) {
+      this.handler = handler;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handle(Message<Object> message) {
+      Object body = message.body();
+      if (body instanceof Batch) {
+        List<?> bodies = ((Batch) body).bodies;
+        FanOut.all(bodies.size(), i -> apply((T) bodies.get(i))).setHandler(ar -> {
+          if (ar.succeeded()) {
+            message.reply(new Batch(Arrays.asList(ar.result())), LOCAL_OPTIONS);
+          } else {
+            message.fail(FAILURE, ar.cause().getMessage());
+          }
+        });
+      } else {
+        apply((T) body).setHandler(ar -> {
+          if (ar.succeeded()) {
+            R result = ar.result();
+            message.reply(result, options(result, null));
+          } else {
+            message.fail(FAILURE, ar.cause().getMessage());
+          }
+        });
+      }
+    }
+
+    private Future<R> apply(T body) {
+      try {
+        return handler.apply(body);
+      } catch (RuntimeException e) {
+        return Future.failedFuture(e);
+      }
+    }
+  }
+
+  private static final class LocalCodec implements MessageCodec<Object, Object> {
+
+    @Override
+    public void encodeToWire(Buffer buffer, Object body) {
+      throw new UnsupportedOperationException(body.getClass().getName() + " is sent to the local consumers only");
+    }
+
+    @Override
+    public Object decodeFromWire(int pos, Buffer buffer) {
+      throw new UnsupportedOperationException(LOCAL_CODEC + " is sent to the local consumers only");
+    }
+
+    @Override
+    public Object transform(Object body) {
+      return body;
+    }
+
+    @Override
+    public String name() {
+      return LOCAL_CODEC;
+    }
+
+    @Override
+    public byte systemCodecID() {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package tk.okou.future.core;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Fan-out/fan-in of async calls: {@code task} is called with the indexes {@code 0} to {@code count - 1}, at most
+ * {@code concurrency} of its futures being in flight, and the results are collected by index.
+ * <pre>
+ * FanOut.all(keys.length, 16, i -&gt; redis.asyncGet(keys[i]))
+ * </pre>
+ * Each in-flight call is tracked by a slot handler reused for the next index, so a fan-out allocates
+ * {@code concurrency} handlers whatever {@code count}, and futures completing synchronously need no handler at all.
+ * <p>
+ * No task is started once the returned future is complete: {@code all} stops at the first failure, {@code any} at the
+ * first success, and the caller can cancel the remaining tasks by completing the returned future itself, e.g.
+ * {@code tryFail} on a timeout. Calls already in flight are not interrupted.
+ */
+public final class FanOut {
+
+  private FanOut() {
+  }
+
+  /**
+   * @return the results by index, failed with the first failure
+   */
+  public static <T> Future<Object[]> all(int count, IntFunction<Future<T>> task) {
+    return all(count, Math.max(count, 1), task);
+  }
+
+  /**
+   * @return the results by index, failed with the first failure
+   */
+  public static <T> Future<Object[]> all(int count, int concurrency, IntFunction<Future<T>> task) {
+    return new Fan<>(Mode.ALL, count, task).<Object[]>start(concurrency);
+  }
+
+  /**
+   * @return the results by index once all the calls completed, failed with the first failure when any failed
+   */
+  public static <T> Future<Object[]> join(int count, IntFunction<Future<T>> task) {
+    return join(count, Math.max(count, 1), task);
+  }
+
+  /**
+   * @return the results by index once all the calls completed, failed with the first failure when any failed
+   */
+  public static <T> Future<Object[]> join(int count, int concurrency, IntFunction<Future<T>> task) {
+    return new Fan<>(Mode.JOIN, count, task).<Object[]>start(concurrency);
+  }
+
+  /**
+   * @return the first result, failed with the last failure when all failed
+   */
+  public static <T> Future<T> any(int count, IntFunction<Future<T>> task) {
+    return any(count, Math.max(count, 1), task);
+  }
+
+  /**
+   * @return the first result, failed with the last failure when all failed
+   */
+  public static <T> Future<T> any(int count, int concurrency, IntFunction<Future<T>> task) {
+    return new Fan<>(Mode.ANY, count, task).<T>start(concurrency);
+  }
+
+  private enum Mode {
+    ALL, JOIN, ANY
+  }
+
+  @SuppressWarnings("unchecked")
+  private static final class Fan<T> {
+    private final Mode mode;
+    private final IntFunction<Future<T>> task;
+    private final int count;
+    private final Object[] results;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final Future<Object> future = Future.future();
+    private volatile Throwable failure;
+
+    private Fan(Mode mode, int count, IntFunction<Future<T>> task) {
+      this.mode = mode;
+      this.task = task;
+      this.count = count;
+      this.results = mode == Mode.ANY ? null : new Object[count];
+      this.remaining = new AtomicInteger(count);
+    }
+
+    private <R> Future<R> start(int concurrency) {
+      if (concurrency <= 0) {
+        throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+      }
+      if (count == 0) {
+        if (mode == Mode.ANY) {
+          future.fail(new NoSuchElementException("No task to run"));
+        } else {
+          future.complete(results);
+        }
+      }
+      for (int i = 0; i < concurrency && i < count && !future.isComplete(); i++) {
+        new Slot().run();
+      }
+      return (Future<R>) future;
+    }
+
+    /**
+     * @return the next index to start, {@code -1} when all are started or the fan-out is complete
+     */
+    private int next() {
+      if (future.isComplete()) {
+        return -1;
+      }
+      int index = next.getAndIncrement();
+      return index < count ? index : -1;
+    }
+
+    private void completed(int index, AsyncResult<T> ar) {
+      if (ar.succeeded()) {
+        if (mode == Mode.ANY) {
+          future.tryComplete(ar.result());
+          return;
+        }
+        results[index] = ar.result();
+      } else {
+        if (mode == Mode.ALL) {
+          future.tryFail(ar.cause());
+          return;
+        }
+        if (failure == null || mode == Mode.ANY) {
+          failure = ar.cause();
+        }
+      }
+      if (remaining.decrementAndGet() == 0) {
+        if (mode == Mode.ANY || failure != null) {
+          future.tryFail(failure);
+        } else {
+          future.tryComplete(results);
+        }
+      }
+    }
+
+    /**
+     * Tracks one call in flight, then starts the next index.
+     */
+    private final class Slot implements Handler<AsyncResult<T>> {
+      private int index;
+
+      void run() {
+        int i;
+        while ((i = next()) >= 0) {
+          Future<T> call;
+          try {
+            call = task.apply(i);
+          } catch (RuntimeException e) {
+            call = Future.failedFuture(e);
+          }
+          if (call.isComplete()) {
+            completed(i, call);
+          } else {
+            index = i;
+            call.setHandler(this);
+            return;
+          }
+        }
+      }
+
+      @Override
+      public void handle(AsyncResult<T> ar) {
+        completed(index, ar);
+        run();
+      }
+    }
+  }
+}
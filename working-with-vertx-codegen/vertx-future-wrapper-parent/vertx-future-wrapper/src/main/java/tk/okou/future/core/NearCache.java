@@ -0,0 +1,400 @@
+package tk.okou.future.core;
+
+import io.vertx.core.Future;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded in-process cache of the results of async calls, in front of a remote store.
+ * <pre>
+ * NearCache&lt;String, String&gt; cache = new NearCache&lt;&gt;(10_000, 30, TimeUnit.SECONDS);
+ * cache.get(key, redis::asyncGet)
+ * </pre>
+ * The entries expire {@code ttl} after they are loaded. Once the cache is full, a new entry replaces the least
+ * frequently requested of {@code 8} entries sampled at random, and only if its own key was requested more often
+ * recently. The frequencies are estimated by a count-min sketch of 4-bit counters, halved every
+ * {@code 10 * maximumSize} requests, so one-off keys do not evict the hot ones.
+ * <p>
+ * A load that completes after an invalidation or a write of its key is returned to its caller but not cached, since it
+ * may have read the value from before the write. The keys are tracked by {@code 256} stamps, so a write of a key also
+ * drops the loads in flight of the keys sharing its stamp, and {@link #invalidateAll} drops every load. With
+ * {@link #groupBy}, {@link #invalidateGroup} invalidates a set of keys at once, e.g. the fields of a hash, and the keys
+ * of a group share a stamp.
+ * <p>
+ * The cache is thread safe. The reads do not lock: they count the frequencies with a compare-and-set. The writes lock
+ * the cache briefly, and the loads run outside the lock.
+ */
+public final class NearCache<K, V> {
+
+  private static final Object NULL = new Object();
+  private static final int SAMPLES = 8;
+  private static final int STRIPES = 256;
+
+  private final int maximumSize;
+  private final long ttlNanos;
+  private final ConcurrentHashMap<K, Entry<K>> entries = new ConcurrentHashMap<>();
+  private final Sketch sketch;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder invalidations = new LongAdder();
+  private Entry<K>[] slots;
+  private int size;
+  private volatile Function<? super K, ?> group;
+  private Map<Object, Set<K>> groups;
+  private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+
+  @SuppressWarnings("unchecked")
+  public NearCache(int maximumSize, long ttl, TimeUnit unit) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+    }
+    this.maximumSize = maximumSize;
+    this.ttlNanos = unit.toNanos(ttl);
+    this.sketch = new Sketch(maximumSize);
+    this.slots = (Entry<K>[]) new Entry<?>[Math.min(maximumSize, 16)];
+  }
+
+  /**
+   * Groups the keys for {@link #invalidateGroup}, the keys whose group is themselves belonging to no other group. Set
+   * it before caching anything.
+   */
+  public synchronized NearCache<K, V> groupBy(Function<? super K, ?> group) {
+    this.group = group;
+    this.groups = new HashMap<>();
+    return this;
+  }
+
+  /**
+   * @return the cached value, {@code null} when absent, expired or cached as {@code null}
+   */
+  public V getIfPresent(K key) {
+    Object value = lookup(key);
+    return value != null && value != NULL ? cast(value) : null;
+  }
+
+  /**
+   * @return the cached value, or else the value loaded by {@code loader} and cached unless {@code key} was
+   * invalidated in the meantime, {@code null} values included
+   */
+  public Future<V> get(K key, Function<? super K, Future<V>> loader) {
+    Object value = lookup(key);
+    if (value != null) {
+      return Future.succeededFuture(value != NULL ? cast(value) : null);
+    }
+    int stripe = stripe(key);
+    long start = stamps.get(stripe);
+    Future<V> future;
+    try {
+      future = loader.apply(key);
+    } catch (RuntimeException e) {
+      return Future.failedFuture(e);
+    }
+    return future.map(loaded -> {
+      put(key, loaded, stripe, start, ttlNanos);
+      return loaded;
+    });
+  }
+
+  /**
+   * Caches the value just written to the store for {@code key}. The loads of {@code key} in flight are not cached,
+   * since they may have read the value from before the write.
+   */
+  public synchronized void put(K key, V value) {
+    int stripe = stripe(key);
+    put(key, value, stripe, stamps.incrementAndGet(stripe), ttlNanos);
+  }
+
+  /**
+   * Caches the value just written to the store for {@code key}, for {@code ttl} or the time to live of the cache,
+   * whichever is shorter. The loads of {@code key} in flight are not cached.
+   */
+  public synchronized void put(K key, V value, long ttl, TimeUnit unit) {
+    int stripe = stripe(key);
+    put(key, value, stripe, stamps.incrementAndGet(stripe), Math.min(unit.toNanos(ttl), ttlNanos));
+  }
+
+  public synchronized void invalidate(K key) {
+    stamps.incrementAndGet(stripe(key));
+    invalidations.increment();
+    remove(entries.get(key));
+  }
+
+  /**
+   * Invalidates {@code group} and the keys of the group.
+   */
+  public synchronized void invalidateGroup(Object group) {
+    stamps.incrementAndGet(stripeOf(group));
+    invalidations.increment();
+    remove(entries.get(group));
+    if (groups != null) {
+      Set<K> keys = groups.remove(group);
+      if (keys != null) {
+        for (K key : keys) {
+          remove(entries.get(key));
+        }
+      }
+    }
+  }
+
+  public synchronized void invalidateAll() {
+    for (int i = 0; i < STRIPES; i++) {
+      stamps.incrementAndGet(i);
+    }
+    invalidations.increment();
+    entries.clear();
+    Arrays.fill(slots, 0, size, null);
+    size = 0;
+    if (groups != null) {
+      groups.clear();
+    }
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public long hits() {
+    return hits.sum();
+  }
+
+  public long misses() {
+    return misses.sum();
+  }
+
+  /**
+   * @return the entries removed as expired or replaced by more frequent keys, and the entries not cached because
+   * their key is less frequent than the sampled victim
+   */
+  public long evictions() {
+    return evictions.sum();
+  }
+
+  public long invalidations() {
+    return invalidations.sum();
+  }
+
+  private Object lookup(K key) {
+    sketch.increment(key.hashCode());
+    Entry<K> entry = entries.get(key);
+    if (entry != null) {
+      if (entry.expiresAt - System.nanoTime() > 0) {
+        hits.increment();
+        return entry.value;
+      }
+      expire(entry);
+    }
+    misses.increment();
+    return null;
+  }
+
+  private synchronized void expire(Entry<K> entry) {
+    if (entries.get(entry.key) == entry) {
+      remove(entry);
+      evictions.increment();
+    }
+  }
+
+  private synchronized void put(K key, V value, int stripe, long start, long ttl) {
+    if (start != stamps.get(stripe)) {
+      return;
+    }
+    long now = System.nanoTime();
+    Object cached = value != null ? value : NULL;
+    Entry<K> entry = entries.get(key);
+    if (entry != null) {
+      entry.value = cached;
+      entry.expiresAt = now + ttl;
+      return;
+    }
+    if (size >= maximumSize) {
+      Entry<K> victim = sample(now);
+      if (victim.expiresAt - now > 0 && sketch.frequency(key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+        evictions.increment();
+        return;
+      }
+      remove(victim);
+      evictions.increment();
+    }
+    if (size == slots.length) {
+      slots = Arrays.copyOf(slots, Math.min(slots.length * 2, maximumSize));
+    }
+    entry = new Entry<>(key, cached, now + ttl, size);
+    slots[size++] = entry;
+    entries.put(key, entry);
+    if (groups != null) {
+      Object g = group.apply(key);
+      if (!key.equals(g)) {
+        groups.computeIfAbsent(g, k -> new HashSet<>()).add(key);
+      }
+    }
+  }
+
+  /**
+   * @return an expired entry, or else the least frequent of the sampled entries
+   */
+  private Entry<K> sample(long now) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    Entry<K> victim = null;
+    int victimFrequency = Integer.MAX_VALUE;
+    for (int i = 0; i < SAMPLES; i++) {
+      Entry<K> entry = slots[random.nextInt(size)];
+      if (entry.expiresAt - now <= 0) {
+        return entry;
+      }
+      int frequency = sketch.frequency(entry.key.hashCode());
+      if (frequency < victimFrequency) {
+        victim = entry;
+        victimFrequency = frequency;
+      }
+    }
+    return victim;
+  }
+
+  private void remove(Entry<K> entry) {
+    if (entry == null) {
+      return;
+    }
+    entries.remove(entry.key, entry);
+    Entry<K> last = slots[--size];
+    slots[entry.slot] = last;
+    last.slot = entry.slot;
+    slots[size] = null;
+    if (groups != null) {
+      Object g = group.apply(entry.key);
+      Set<K> keys = groups.get(g);
+      if (keys != null && keys.remove(entry.key) && keys.isEmpty()) {
+        groups.remove(g);
+      }
+    }
+  }
+
+  /**
+   * @return the stamp of {@code key}, the stamp of its group when the keys are grouped
+   */
+  private int stripe(K key) {
+    Function<? super K, ?> group = this.group;
+    return stripeOf(group != null ? group.apply(key) : key);
+  }
+
+  private static int stripeOf(Object key) {
+    int h = key.hashCode() * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & (STRIPES - 1);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T cast(Object value) {
+    return (T) value;
+  }
+
+  /**
+   * A cached value, updated in place under the lock. Its slot is read and written under the lock.
+   */
+  private static final class Entry<K> {
+    private final K key;
+    private volatile Object value;
+    private volatile long expiresAt;
+    private int slot;
+
+    private Entry(K key, Object value, long expiresAt, int slot) {
+      this.key = key;
+      this.value = value;
+      this.expiresAt = expiresAt;
+      this.slot = slot;
+    }
+  }
+
+  /**
+   * A count-min sketch of four rows of 4-bit counters packed in longs, the counters halved once {@code sampleSize}
+   * increments have been counted so that the frequencies follow the recent requests. The counters are incremented and
+   * halved with a compare-and-set, a counter never carrying into its neighbour.
+   */
+  private static final class Sketch {
+    private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final AtomicLongArray table;
+    private final int mask;
+    private final int sampleSize;
+    private final AtomicInteger size = new AtomicInteger();
+
+    private Sketch(int maximumSize) {
+      int length = Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 1;
+      table = new AtomicLongArray(length);
+      mask = length - 1;
+      sampleSize = 10 * maximumSize;
+    }
+
+    private void increment(int hashCode) {
+      int hash = spread(hashCode);
+      boolean added = false;
+      for (int i = 0; i < 4; i++) {
+        added |= incrementAt(index(hash, i), counter(hash, i));
+      }
+      // a single thread counts the sample size and resets
+      if (added && size.incrementAndGet() == sampleSize) {
+        reset();
+      }
+    }
+
+    private int frequency(int hashCode) {
+      int hash = spread(hashCode);
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; i++) {
+        int shift = counter(hash, i) << 2;
+        frequency = Math.min(frequency, (int) ((table.get(index(hash, i)) >>> shift) & 0xF));
+      }
+      return frequency;
+    }
+
+    private boolean incrementAt(int index, int counter) {
+      int shift = counter << 2;
+      while (true) {
+        long word = table.get(index);
+        if (((word >>> shift) & 0xF) == 0xF) {
+          return false;
+        }
+        if (table.compareAndSet(index, word, word + (1L << shift))) {
+          return true;
+        }
+      }
+    }
+
+    private int index(int hash, int row) {
+      long h = (hash + SEEDS[row]) * SEEDS[row];
+      return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int spread(int hashCode) {
+      int h = hashCode * 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+
+    private static int counter(int hash, int row) {
+      return ((hash >>> (row << 3)) & 0xF);
+    }
+
+    private void reset() {
+      for (int i = 0; i < table.length(); i++) {
+        while (true) {
+          long word = table.get(i);
+          if (table.compareAndSet(i, word, (word >>> 1) & RESET_MASK)) {
+            break;
+          }
+        }
+      }
+      size.addAndGet(-(sampleSize >>> 1));
+    }
+  }
+}
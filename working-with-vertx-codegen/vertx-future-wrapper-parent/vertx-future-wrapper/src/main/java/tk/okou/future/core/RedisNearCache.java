@@ -0,0 +1,181 @@
+package tk.okou.future.core;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.future.core.Vertx;
+import io.vertx.future.core.eventbus.MessageConsumer;
+import io.vertx.future.redis.RedisClient;
+import io.vertx.redis.RedisOptions;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves {@code GET} and {@code HGET} from a {@link NearCache} of the hot keys. The writes are published on a pub/sub
+ * channel so that the near caches of every instance invalidate the key.
+ * <pre>
+ * RedisNearCache redis = new RedisNearCache(vertx, client, "near-cache", 10_000, 30, TimeUnit.SECONDS);
+ * redis.asyncStart().compose(v -&gt; redis.asyncGet("user:42"))
+ * </pre>
+ * The writes made through {@link #asyncSet}, {@link #asyncHset}, {@link #asyncDel} and {@link #asyncHdel} invalidate
+ * the local cache at once. They publish the key once Redis has replied. Any other writer must publish the modified
+ * keys on the channel, e.g. with {@link #asyncInvalidate}. A cached value can therefore be stale from the write to the
+ * delivery of its invalidation, and for at most {@code ttl} when an invalidation is lost, e.g. while the pub/sub
+ * connection reconnects.
+ * <p>
+ * The client receives the messages of the channel on the event bus at {@code address + "." + channel}. The address is
+ * {@link RedisOptions#getAddress()}, {@code io.vertx.redis} by default.
+ */
+public final class RedisNearCache {
+
+  public static final String DEFAULT_ADDRESS = "io.vertx.redis";
+
+  private final Vertx vertx;
+  private final RedisClient redis;
+  private final String address;
+  private final String channel;
+  private final NearCache<Object, String> cache;
+  private volatile MessageConsumer<JsonObject> consumer;
+  private volatile boolean started;
+
+  public RedisNearCache(Vertx vertx, RedisClient redis, String channel, int maximumSize, long ttl, TimeUnit unit) {
+    this(vertx, redis, DEFAULT_ADDRESS, channel, new NearCache<>(maximumSize, ttl, unit));
+  }
+
+  /**
+   * @param cache the cache of the values by key for {@code GET}, and by {@link HashField} for {@code HGET}, grouped
+   * by key from now on
+   */
+  public RedisNearCache(Vertx vertx, RedisClient redis, String address, String channel, NearCache<Object, String> cache) {
+    this.vertx = vertx;
+    this.redis = redis;
+    this.address = address;
+    this.channel = channel;
+    this.cache = cache.groupBy(key -> key instanceof HashField ? ((HashField) key).key : key);
+  }
+
+  /**
+   * Subscribes to the invalidations. The cache is used only once the subscription is acknowledged.
+   */
+  public Future<Void> asyncStart() {
+    consumer = vertx.eventBus().consumer(address + "." + channel, message -> {
+      JsonObject value = message.body().getJsonObject("value");
+      String key = value != null ? value.getString("message") : null;
+      if (key != null) {
+        cache.invalidateGroup(key);
+      }
+    });
+    return consumer.asyncCompletionHandler()
+      .compose(v -> redis.asyncSubscribe(channel))
+      .map(subscribed -> {
+        cache.invalidateAll();
+        started = true;
+        return null;
+      });
+  }
+
+  /**
+   * Unsubscribes from the invalidations and empties the cache.
+   */
+  public Future<Void> asyncClose() {
+    MessageConsumer<JsonObject> consumer = this.consumer;
+    this.consumer = null;
+    started = false;
+    cache.invalidateAll();
+    if (consumer == null) {
+      return Future.succeededFuture();
+    }
+    // the client completes this Future<Void> with the JsonArray of the UNSUBSCRIBE reply
+    return redis.asyncUnsubscribe(Collections.singletonList(channel)).<Void>mapEmpty().compose(v -> consumer.asyncUnregister());
+  }
+
+  public Future<String> asyncGet(String key) {
+    if (!started) {
+      return redis.asyncGet(key);
+    }
+    return cache.get(key, k -> redis.asyncGet(key));
+  }
+
+  public Future<String> asyncHget(String key, String field) {
+    if (!started) {
+      return redis.asyncHget(key, field);
+    }
+    return cache.get(new HashField(key, field), k -> redis.asyncHget(key, field));
+  }
+
+  public Future<Void> asyncSet(String key, String value) {
+    cache.invalidateGroup(key);
+    return redis.asyncSet(key, value).compose(v -> asyncInvalidate(key)).map(n -> null);
+  }
+
+  public Future<Long> asyncHset(String key, String field, String value) {
+    cache.invalidateGroup(key);
+    return redis.asyncHset(key, field, value).compose(n -> asyncInvalidate(key).map(n));
+  }
+
+  public Future<Long> asyncDel(String key) {
+    cache.invalidateGroup(key);
+    return redis.asyncDel(key).compose(n -> asyncInvalidate(key).map(n));
+  }
+
+  public Future<Long> asyncHdel(String key, String field) {
+    cache.invalidateGroup(key);
+    return redis.asyncHdel(key, field).compose(n -> asyncInvalidate(key).map(n));
+  }
+
+  /**
+   * Invalidates {@code key} in the near caches of every instance, the fields included when it is a hash.
+   *
+   * @return the number of subscribers that received the invalidation
+   */
+  public Future<Long> asyncInvalidate(String key) {
+    cache.invalidateGroup(key);
+    return redis.asyncPublish(channel, key);
+  }
+
+  public NearCache<Object, String> cache() {
+    return cache;
+  }
+
+  /**
+   * @return the client, whose calls bypass the cache
+   */
+  public RedisClient redis() {
+    return redis;
+  }
+
+  /**
+   * The key of a field of a hash in the cache.
+   */
+  public static final class HashField {
+    private final String key;
+    private final String field;
+
+    public HashField(String key, String field) {
+      this.key = key;
+      this.field = field;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof HashField)) {
+        return false;
+      }
+      HashField that = (HashField) o;
+      return key.equals(that.key) && field.equals(that.field);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * key.hashCode() + field.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return key + "#" + field;
+    }
+  }
+}
@@ -0,0 +1,236 @@
+package tk.okou.future.core;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Closeable;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.future.core.Vertx;
+import io.vertx.future.redis.RedisClient;
+import io.vertx.redis.RedisOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Redis clients owned by the context of the caller, so that the commands of a verticle are written and replied on its
+ * event loop instead of queuing behind the commands of the other verticles on a shared connection.
+ * <pre>
+ * RedisPool pool = new RedisPool(vertx, Arrays.asList(shard0, shard1), 2);
+ * pool.client(key).asyncGet(key)
+ * </pre>
+ * A context gets {@code connections} clients per endpoint on its first command. They are closed with the context, e.g.
+ * when its verticle is undeployed. The callers without a context share a set of clients.
+ * <p>
+ * {@link #client(String)} picks the endpoint of a key by consistent hashing: adding an endpoint moves about
+ * {@code 1 / endpoints} of the keys. As with Redis Cluster, only the part of the key between the first {@code {} and
+ * the next {@code }} is hashed when there is one, e.g. {@code {user:42}:profile}, so that related keys stay on the same
+ * endpoint. The key also picks the connection, so the commands of a key are replied in order.
+ */
+public final class RedisPool {
+
+  private static final int VIRTUAL_NODES = 160;
+
+  private final io.vertx.core.Vertx vertx;
+  private final List<RedisOptions> endpoints;
+  private final int connections;
+  private final BiFunction<io.vertx.core.Vertx, RedisOptions, io.vertx.redis.RedisClient> factory;
+  private final int[] ringHashes;
+  private final int[] ringEndpoints;
+  private final Map<Context, Clients> byContext = new ConcurrentHashMap<>();
+  private Clients shared;
+  private volatile boolean closed;
+
+  public RedisPool(Vertx vertx, RedisOptions options) {
+    this(vertx, Collections.singletonList(options), 1);
+  }
+
+  public RedisPool(Vertx vertx, List<RedisOptions> endpoints, int connections) {
+    this(vertx, endpoints, connections, io.vertx.redis.RedisClient::create);
+  }
+
+  /**
+   * @param factory creates a client of an endpoint, called on the context owning the client
+   */
+  public RedisPool(Vertx vertx, List<RedisOptions> endpoints, int connections, BiFunction<io.vertx.core.Vertx, RedisOptions, io.vertx.redis.RedisClient> factory) {
+    if (endpoints.isEmpty() || connections <= 0) {
+      throw new IllegalArgumentException("a pool needs at least an endpoint and a connection");
+    }
+    this.vertx = vertx.getDelegate();
+    this.endpoints = new ArrayList<>(endpoints);
+    this.connections = connections;
+    this.factory = factory;
+    long[] ring = new long[endpoints.size() * VIRTUAL_NODES];
+    for (int e = 0; e < endpoints.size(); e++) {
+      RedisOptions options = endpoints.get(e);
+      for (int v = 0; v < VIRTUAL_NODES; v++) {
+        int hash = hash(options.getHost() + ":" + options.getPort() + "#" + v);
+        ring[e * VIRTUAL_NODES + v] = ((long) hash << 32) | e;
+      }
+    }
+    Arrays.sort(ring);
+    ringHashes = new int[ring.length];
+    ringEndpoints = new int[ring.length];
+    for (int i = 0; i < ring.length; i++) {
+      ringHashes[i] = (int) (ring[i] >> 32);
+      ringEndpoints[i] = (int) ring[i];
+    }
+  }
+
+  /**
+   * @return a client of the first endpoint, for the commands without a key
+   */
+  public RedisClient client() {
+    return clients().next(0);
+  }
+
+  /**
+   * @return the client of the endpoint and of the connection of {@code key}
+   */
+  public RedisClient client(String key) {
+    int hash = hash(hashTag(key));
+    return clients().get(ringEndpoint(hash), hash);
+  }
+
+  /**
+   * @return a client of the endpoint {@code index}, in the order of the endpoints of the pool
+   */
+  public RedisClient endpoint(int index) {
+    return clients().next(index);
+  }
+
+  /**
+   * @return the index of the endpoint of {@code key}
+   */
+  public int shard(String key) {
+    return ringEndpoint(hash(hashTag(key)));
+  }
+
+  public int size() {
+    return endpoints.size();
+  }
+
+  /**
+   * Closes the clients of every context.
+   */
+  public Future<Void> asyncClose() {
+    closed = true;
+    List<Clients> all = new ArrayList<>(byContext.values());
+    byContext.clear();
+    synchronized (this) {
+      if (shared != null) {
+        all.add(shared);
+        shared = null;
+      }
+    }
+    return FanOut.join(all.size(), i -> all.get(i).asyncClose()).map((Void) null);
+  }
+
+  private Clients clients() {
+    if (closed) {
+      throw new IllegalStateException("pool closed");
+    }
+    Context context = io.vertx.core.Vertx.currentContext();
+    if (context == null) {
+      synchronized (this) {
+        if (shared == null) {
+          shared = new Clients(null);
+        }
+        return shared;
+      }
+    }
+    Clients clients = byContext.get(context);
+    if (clients == null) {
+      Clients created = new Clients(context);
+      clients = byContext.putIfAbsent(context, created);
+      if (clients == null) {
+        clients = created;
+        context.addCloseHook(created);
+      } else {
+        created.closeClients();
+      }
+    }
+    return clients;
+  }
+
+  private int ringEndpoint(int hash) {
+    int i = Arrays.binarySearch(ringHashes, hash);
+    if (i < 0) {
+      i = -i - 1;
+    }
+    return ringEndpoints[i < ringHashes.length ? i : 0];
+  }
+
+  private static String hashTag(String key) {
+    int start = key.indexOf('{');
+    if (start >= 0) {
+      int end = key.indexOf('}', start + 1);
+      if (end > start + 1) {
+        return key.substring(start + 1, end);
+      }
+    }
+    return key;
+  }
+
+  /**
+   * The 32-bit FNV-1a hash of the UTF-8 bytes of {@code s}, mixed so that close strings spread over the ring.
+   */
+  private static int hash(String s) {
+    int h = 0x811C9DC5;
+    for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+      h = (h ^ (b & 0xFF)) * 0x01000193;
+    }
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    return h;
+  }
+
+  /**
+   * The clients of a context, {@code connections} per endpoint.
+   */
+  private final class Clients implements Closeable {
+    private final Context context;
+    private final RedisClient[] clients;
+    private int next;
+
+    private Clients(Context context) {
+      this.context = context;
+      this.clients = new RedisClient[endpoints.size() * connections];
+      for (int i = 0; i < clients.length; i++) {
+        clients[i] = RedisClient.newInstance(factory.apply(vertx, endpoints.get(i / connections)));
+      }
+    }
+
+    private RedisClient get(int endpoint, int hash) {
+      return clients[endpoint * connections + ((hash >>> 16) % connections)];
+    }
+
+    private RedisClient next(int endpoint) {
+      return clients[endpoint * connections + (connections == 1 ? 0 : (next++ & Integer.MAX_VALUE) % connections)];
+    }
+
+    private Future<Void> asyncClose() {
+      if (context != null) {
+        context.removeCloseHook(this);
+      }
+      return closeClients();
+    }
+
+    @Override
+    public void close(Handler<AsyncResult<Void>> completionHandler) {
+      byContext.remove(context, this);
+      closeClients().setHandler(completionHandler);
+    }
+
+    private Future<Void> closeClients() {
+      return FanOut.join(clients.length, i -> clients[i].asyncClose()).map((Void) null);
+    }
+  }
+}
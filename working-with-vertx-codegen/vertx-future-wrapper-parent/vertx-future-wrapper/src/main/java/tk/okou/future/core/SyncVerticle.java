@@ -0,0 +1,52 @@
+package tk.okou.future.core;
+
+import tk.okou.vertx.future.wrapper.Sync;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A verticle whose {@link #start()} and {@link #stop()} run on a virtual thread (a daemon thread before Java 21)
+ * instead of the event loop, so they can call the blocking {@code io.vertx.sync} facades.
+ * <p>
+ * The {@link #asyncStart()} and start phases, or {@link #asyncStop()} and stop phases, run back on the context of the
+ * verticle once {@link #start()} or {@link #stop()} returned.
+ */
+public abstract class SyncVerticle extends AbstractVerticle {
+
+  @Override
+  public void start(io.vertx.core.Future<Void> startFuture) throws Exception {
+    runBlocking(this::start, "start", startTimings, this::runStartPhases, startFuture);
+  }
+
+  @Override
+  public void stop(io.vertx.core.Future<Void> stopFuture) throws Exception {
+    runBlocking(this::stop, "stop", stopTimings, this::runStopPhases, stopFuture);
+  }
+
+  private void runBlocking(Blocking code, String name, Map<String, Long> timings, Consumer<io.vertx.core.Future<Void>> then, io.vertx.core.Future<Void> future) {
+    Sync.executor().execute(() -> {
+      long begin = System.nanoTime();
+      Throwable failure = null;
+      try {
+        code.run();
+      } catch (Throwable t) {
+        failure = t;
+      }
+      timings.put(name, System.nanoTime() - begin);
+      Throwable cause = failure;
+      context.runOnContext(v -> {
+        if (cause == null) {
+          then.accept(future);
+        } else {
+          future.fail(cause);
+        }
+      });
+    });
+  }
+
+  @FunctionalInterface
+  private interface Blocking {
+    void run() throws Exception;
+  }
+}
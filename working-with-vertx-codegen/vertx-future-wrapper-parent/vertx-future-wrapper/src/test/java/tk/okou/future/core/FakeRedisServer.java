@@ -0,0 +1,229 @@
+package tk.okou.future.core;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetSocket;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-process Redis speaking enough RESP for the tests and the benchmarks: {@code PING}, {@code GET}, {@code SET},
+ * {@code DEL}, {@code EXISTS}, {@code INCR}, {@code HGET}, {@code HSET}, {@code HDEL}, {@code SUBSCRIBE},
+ * {@code UNSUBSCRIBE} and {@code PUBLISH}, any other command replies {@code +OK}.
+ * <p>
+ * Like Redis, the replies to the commands of one read are written at once. {@link #reads()} against
+ * {@link #commands()} tells how well the client pipelines.
+ */
+public class FakeRedisServer {
+
+  private static final Buffer CRLF = Buffer.buffer("\r\n");
+
+  private final Map<String, String> data = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, String>> hashes = new ConcurrentHashMap<>();
+  private final Map<String, Set<NetSocket>> subscribers = new ConcurrentHashMap<>();
+  private final LongAdder reads = new LongAdder();
+  private final LongAdder commands = new LongAdder();
+  private NetServer server;
+
+  public static Future<FakeRedisServer> start(Vertx vertx) {
+    FakeRedisServer redis = new FakeRedisServer();
+    Future<FakeRedisServer> future = Future.future();
+    redis.server = vertx.createNetServer().connectHandler(redis::connected);
+    redis.server.listen(0, "localhost", ar -> {
+      if (ar.succeeded()) {
+        future.complete(redis);
+      } else {
+        future.fail(ar.cause());
+      }
+    });
+    return future;
+  }
+
+  public int port() {
+    return server.actualPort();
+  }
+
+  public long reads() {
+    return reads.sum();
+  }
+
+  public long commands() {
+    return commands.sum();
+  }
+
+  public void close() {
+    server.close();
+  }
+
+  private void connected(NetSocket socket) {
+    socket.handler(new Connection(socket));
+    socket.closeHandler(v -> subscribers.values().forEach(sockets -> sockets.remove(socket)));
+  }
+
+  private class Connection implements Handler<Buffer> {
+    private final NetSocket socket;
+    private Buffer pending = Buffer.buffer();
+
+    Connection(NetSocket socket) {
+      this.socket = socket;
+    }
+
+    @Override
+    public void handle(Buffer received) {
+      reads.increment();
+      pending.appendBuffer(received);
+      Buffer replies = Buffer.buffer();
+      List<String> args = new ArrayList<>();
+      int pos = 0;
+      int next;
+      while ((next = parse(pending, pos, args)) > 0) {
+        commands.increment();
+        reply(socket, args, replies);
+        args.clear();
+        pos = next;
+      }
+      if (pos > 0) {
+        pending = pending.getBuffer(pos, pending.length());
+      }
+      if (replies.length() > 0) {
+        socket.write(replies);
+      }
+    }
+  }
+
+  /**
+   * @return the position after the command starting at {@code pos}, or {@code -1} when it is not complete yet
+   */
+  private static int parse(Buffer buffer, int pos, List<String> args) {
+    int end = lineEnd(buffer, pos);
+    if (end < 0) {
+      return -1;
+    }
+    int count = Integer.parseInt(buffer.getString(pos + 1, end));
+    pos = end + 2;
+    for (int i = 0; i < count; i++) {
+      end = lineEnd(buffer, pos);
+      if (end < 0) {
+        return -1;
+      }
+      int length = Integer.parseInt(buffer.getString(pos + 1, end));
+      pos = end + 2;
+      if (pos + length + 2 > buffer.length()) {
+        return -1;
+      }
+      args.add(buffer.getString(pos, pos + length, StandardCharsets.UTF_8.name()));
+      pos += length + 2;
+    }
+    return pos;
+  }
+
+  private static int lineEnd(Buffer buffer, int pos) {
+    for (int i = pos; i < buffer.length() - 1; i++) {
+      if (buffer.getByte(i) == '\r' && buffer.getByte(i + 1) == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void reply(NetSocket socket, List<String> args, Buffer replies) {
+    switch (args.get(0).toUpperCase()) {
+      case "PING":
+        simple("PONG", replies);
+        break;
+      case "GET":
+        bulk(data.get(args.get(1)), replies);
+        break;
+      case "SET":
+        data.put(args.get(1), args.get(2));
+        simple("OK", replies);
+        break;
+      case "DEL":
+      case "EXISTS": {
+        long count = 0;
+        for (String key : args.subList(1, args.size())) {
+          if ("DEL".equalsIgnoreCase(args.get(0)) ? data.remove(key) != null : data.containsKey(key)) {
+            count++;
+          }
+        }
+        integer(count, replies);
+        break;
+      }
+      case "INCR": {
+        long value = Long.parseLong(data.getOrDefault(args.get(1), "0")) + 1;
+        data.put(args.get(1), Long.toString(value));
+        integer(value, replies);
+        break;
+      }
+      case "HGET": {
+        Map<String, String> hash = hashes.get(args.get(1));
+        bulk(hash != null ? hash.get(args.get(2)) : null, replies);
+        break;
+      }
+      case "HSET":
+        integer(hashes.computeIfAbsent(args.get(1), k -> new ConcurrentHashMap<>()).put(args.get(2), args.get(3)) == null ? 1 : 0, replies);
+        break;
+      case "HDEL": {
+        Map<String, String> hash = hashes.get(args.get(1));
+        integer(hash != null && hash.remove(args.get(2)) != null ? 1 : 0, replies);
+        break;
+      }
+      case "SUBSCRIBE":
+      case "UNSUBSCRIBE":
+        for (String channel : args.subList(1, args.size())) {
+          Set<NetSocket> sockets = subscribers.computeIfAbsent(channel, k -> ConcurrentHashMap.newKeySet());
+          if ("SUBSCRIBE".equalsIgnoreCase(args.get(0))) {
+            sockets.add(socket);
+          } else {
+            sockets.remove(socket);
+          }
+          replies.appendString("*3").appendBuffer(CRLF);
+          bulk(args.get(0).toLowerCase(), replies);
+          bulk(channel, replies);
+          integer(sockets.size(), replies);
+        }
+        break;
+      case "PUBLISH": {
+        Set<NetSocket> sockets = subscribers.getOrDefault(args.get(1), Collections.emptySet());
+        Buffer message = Buffer.buffer().appendString("*3").appendBuffer(CRLF);
+        bulk("message", message);
+        bulk(args.get(1), message);
+        bulk(args.get(2), message);
+        for (NetSocket subscriber : sockets) {
+          subscriber.write(message);
+        }
+        integer(sockets.size(), replies);
+        break;
+      }
+      default:
+        simple("OK", replies);
+    }
+  }
+
+  private static void simple(String value, Buffer replies) {
+    replies.appendString("+").appendString(value).appendBuffer(CRLF);
+  }
+
+  private static void integer(long value, Buffer replies) {
+    replies.appendString(":").appendString(Long.toString(value)).appendBuffer(CRLF);
+  }
+
+  private static void bulk(String value, Buffer replies) {
+    if (value == null) {
+      replies.appendString("$-1").appendBuffer(CRLF);
+    } else {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      replies.appendString("$").appendString(Integer.toString(bytes.length)).appendBuffer(CRLF).appendBytes(bytes).appendBuffer(CRLF);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package tk.okou.future.core;
+
+import io.vertx.core.Future;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class NearCacheTest {
+
+  private final NearCache<String, String> cache = new NearCache<>(100, 1, TimeUnit.MINUTES);
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private Future<String> load(String key) {
+    loads.incrementAndGet();
+    return Future.succeededFuture("loaded " + key);
+  }
+
+  @Test
+  public void countsHitsAndMisses() {
+    assertEquals("loaded a", cache.get("a", this::load).result());
+    assertEquals("loaded a", cache.get("a", this::load).result());
+    assertEquals("loaded a", cache.get("a", this::load).result());
+    assertNull(cache.getIfPresent("b"));
+    assertEquals(1, loads.get());
+    assertEquals(2, cache.hits());
+    assertEquals(2, cache.misses());
+  }
+
+  @Test
+  public void cachesNullValues() {
+    cache.get("a", key -> {
+      loads.incrementAndGet();
+      return Future.succeededFuture();
+    });
+    assertNull(cache.get("a", this::load).result());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void doesNotCacheALoadRacingAnInvalidation() {
+    Future<String> pending = Future.future();
+    Future<String> result = cache.get("a", key -> pending);
+    cache.invalidate("a");
+    pending.complete("stale");
+    assertEquals("stale", result.result());
+    assertNull(cache.getIfPresent("a"));
+    assertEquals("loaded a", cache.get("a", this::load).result());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void doesNotCacheALoadRacingAPut() {
+    Future<String> pending = Future.future();
+    cache.get("a", key -> pending);
+    cache.put("a", "written");
+    pending.complete("stale");
+    assertEquals("written", cache.getIfPresent("a"));
+  }
+
+  @Test
+  public void doesNotCacheALoadRacingAnInvalidationOfAll() {
+    Future<String> pending = Future.future();
+    cache.get("a", key -> pending);
+    cache.invalidateAll();
+    pending.complete("stale");
+    assertNull(cache.getIfPresent("a"));
+  }
+
+  @Test
+  public void invalidatesTheKeysOfAGroup() {
+    NearCache<String, String> grouped = new NearCache<String, String>(100, 1, TimeUnit.MINUTES)
+      .groupBy(key -> key.substring(0, key.indexOf('#')));
+    grouped.get("h#1", this::load);
+    grouped.get("h#2", this::load);
+    grouped.get("g#1", this::load);
+    Future<String> pending = Future.future();
+    grouped.get("h#3", key -> pending);
+    grouped.invalidateGroup("h");
+    pending.complete("stale");
+    assertNull(grouped.getIfPresent("h#1"));
+    assertNull(grouped.getIfPresent("h#2"));
+    assertNull(grouped.getIfPresent("h#3"));
+    assertEquals("loaded g#1", grouped.getIfPresent("g#1"));
+  }
+
+  @Test
+  public void failedLoadsAreNotCached() {
+    assertEquals("boom", cache.get("a", key -> Future.<String>failedFuture("boom")).cause().getMessage());
+    assertEquals("loaded a", cache.get("a", this::load).result());
+  }
+}
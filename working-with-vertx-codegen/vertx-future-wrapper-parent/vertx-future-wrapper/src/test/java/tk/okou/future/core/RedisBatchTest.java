@@ -0,0 +1,79 @@
+package tk.okou.future.core;
+
+import io.vertx.future.core.Vertx;
+import io.vertx.future.redis.RedisClient;
+import io.vertx.redis.RedisOptions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import tk.okou.vertx.future.wrapper.Sync;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RedisBatchTest {
+
+  private static final int COMMANDS = 1000;
+
+  private io.vertx.core.Vertx vertx;
+  private FakeRedisServer server;
+  private RedisClient client;
+
+  @Before
+  public void setUp() {
+    vertx = io.vertx.core.Vertx.vertx();
+    server = Sync.await(FakeRedisServer.start(vertx));
+    client = RedisClient.create(Vertx.newInstance(vertx), new RedisOptions().setPort(server.port()));
+    Sync.await(client.asyncPing());
+  }
+
+  @After
+  public void tearDown() {
+    Sync.await(client.asyncClose());
+    server.close();
+    vertx.close();
+  }
+
+  @Test
+  public void repliesInTheOrderOfTheCommands() {
+    RedisClient.Batch batch = client.batch();
+    batch.set("key", "value");
+    batch.incr("counter");
+    batch.incr("counter");
+    batch.get("key");
+    batch.get("missing");
+    batch.existsMany(Arrays.asList("key", "missing"));
+    batch.del("key");
+    batch.get("key");
+    List<Object> results = Sync.await(batch.send());
+    assertEquals(Arrays.asList(null, 1L, 2L, "value", null, 1L, 1L, null), results);
+  }
+
+  @Test
+  public void writesTheCommandsBackToBack() {
+    long reads = server.reads();
+    long commands = server.commands();
+    RedisClient.Batch batch = client.batch();
+    for (int i = 0; i < COMMANDS; i++) {
+      batch.incr("counter");
+    }
+    List<Object> results = Sync.await(batch.send());
+    assertEquals(COMMANDS, results.size());
+    assertEquals((long) COMMANDS, results.get(COMMANDS - 1));
+    assertEquals(COMMANDS, server.commands() - commands);
+    // one read per command would mean a round trip per command
+    assertTrue("reads: " + (server.reads() - reads), server.reads() - reads <= COMMANDS / 10);
+  }
+
+  @Test
+  public void isEmptyOnceSent() {
+    RedisClient.Batch batch = client.batch();
+    batch.incr("counter");
+    assertEquals(Arrays.asList(1L), Sync.await(batch.send()));
+    batch.incr("counter");
+    assertEquals(Arrays.asList(2L), Sync.await(batch.send()));
+  }
+}
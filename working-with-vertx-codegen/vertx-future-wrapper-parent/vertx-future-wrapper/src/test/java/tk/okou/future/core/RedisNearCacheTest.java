@@ -0,0 +1,111 @@
+package tk.okou.future.core;
+
+import io.vertx.core.Future;
+import io.vertx.future.core.Vertx;
+import io.vertx.future.redis.RedisClient;
+import io.vertx.redis.RedisOptions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import tk.okou.vertx.future.wrapper.Sync;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RedisNearCacheTest {
+
+  private io.vertx.core.Vertx vertx;
+  private io.vertx.core.Vertx otherVertx;
+  private FakeRedisServer server;
+  private RedisNearCache nearCache;
+  private RedisNearCache otherInstance;
+
+  @Before
+  public void setUp() {
+    vertx = io.vertx.core.Vertx.vertx();
+    // the clients forward the pub/sub messages to a single consumer of their event bus
+    otherVertx = io.vertx.core.Vertx.vertx();
+    server = Sync.await(FakeRedisServer.start(vertx));
+    nearCache = start(vertx);
+    otherInstance = start(otherVertx);
+  }
+
+  private RedisNearCache start(io.vertx.core.Vertx vertx) {
+    RedisClient client = RedisClient.create(Vertx.newInstance(vertx), new RedisOptions().setPort(server.port()));
+    RedisNearCache cache = new RedisNearCache(Vertx.newInstance(vertx), client, "invalidations", 100, 1, TimeUnit.MINUTES);
+    Sync.await(cache.asyncStart());
+    return cache;
+  }
+
+  @After
+  public void tearDown() {
+    Sync.await(nearCache.asyncClose());
+    Sync.await(otherInstance.asyncClose());
+    Sync.await(nearCache.redis().asyncClose());
+    Sync.await(otherInstance.redis().asyncClose());
+    server.close();
+    otherVertx.close();
+    vertx.close();
+  }
+
+  @Test
+  public void servesTheHotKeysFromTheCache() {
+    Sync.await(nearCache.redis().asyncSet("key", "value"));
+    long commands = server.commands();
+    assertEquals("value", Sync.await(nearCache.asyncGet("key")));
+    assertEquals("value", Sync.await(nearCache.asyncGet("key")));
+    assertEquals("value", Sync.await(nearCache.asyncGet("key")));
+    assertEquals(1, server.commands() - commands);
+    assertEquals(2, nearCache.cache().hits());
+    assertEquals(1, nearCache.cache().misses());
+  }
+
+  @Test
+  public void invalidatesTheWritesOfTheOtherInstances() {
+    Sync.await(nearCache.redis().asyncSet("key", "old"));
+    assertEquals("old", Sync.await(nearCache.asyncGet("key")));
+    Sync.await(otherInstance.asyncSet("key", "new"));
+    await(() -> nearCache.cache().getIfPresent("key") == null);
+    assertEquals("new", Sync.await(nearCache.asyncGet("key")));
+  }
+
+  @Test
+  public void invalidatesTheFieldsOfAHash() {
+    Sync.await(nearCache.redis().asyncHset("hash", "a", "1"));
+    Sync.await(nearCache.redis().asyncHset("hash", "b", "2"));
+    assertEquals("1", Sync.await(nearCache.asyncHget("hash", "a")));
+    assertEquals("2", Sync.await(nearCache.asyncHget("hash", "b")));
+    Sync.await(otherInstance.asyncHdel("hash", "a"));
+    await(() -> nearCache.cache().getIfPresent(new RedisNearCache.HashField("hash", "b")) == null);
+    assertNull(Sync.await(nearCache.asyncHget("hash", "a")));
+    assertEquals("2", Sync.await(nearCache.asyncHget("hash", "b")));
+  }
+
+  @Test
+  public void doesNotCacheAGetRacingAWrite() {
+    Sync.await(nearCache.redis().asyncSet("key", "old"));
+    // the GET is replied before the SET on the same connection, after the SET invalidated the key
+    Future<String> get = nearCache.asyncGet("key");
+    Future<Void> set = nearCache.asyncSet("key", "new");
+    assertEquals("old", Sync.await(get));
+    Sync.await(set);
+    assertNull(nearCache.cache().getIfPresent("key"));
+    assertEquals("new", Sync.await(nearCache.asyncGet("key")));
+  }
+
+  private static void await(BooleanSupplier condition) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      assertTrue("timed out", System.nanoTime() < deadline);
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+}